@@ -0,0 +1,69 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.cegeka.intellij.plugin.configurablefilename.benchmark;
+
+import be.cegeka.intellij.plugin.configurablefilename.settings.ConfigurableFilename;
+import be.cegeka.intellij.plugin.configurablefilename.template.FilenameTemplate;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the part of building the New menu actions that runs outside of the IDE: compiling the template of every
+ * configured type. Registering the actions with the ActionManager needs a running application and is not covered.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActionSetupBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int typeCount;
+
+    private List<ConfigurableFilename> filenames;
+
+    @Setup
+    public void setUp() {
+        filenames = new ArrayList<ConfigurableFilename>(typeCount);
+        for (int i = 0; i < typeCount; i++) {
+            filenames.add(new ConfigurableFilename("Type" + i, "sql", Templates.create(1 + i % 8, 8)));
+        }
+    }
+
+    @Benchmark
+    public List<FilenameTemplate> compileAll() {
+        List<FilenameTemplate> templates = new ArrayList<FilenameTemplate>(filenames.size());
+        for (ConfigurableFilename filename : filenames) {
+            templates.add(FilenameTemplate.compile(filename.getTemplate()));
+        }
+        return templates;
+    }
+}
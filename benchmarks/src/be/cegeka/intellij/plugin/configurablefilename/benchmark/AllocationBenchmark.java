@@ -0,0 +1,68 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+package be.cegeka.intellij.plugin.configurablefilename.benchmark;
+
+import be.cegeka.intellij.plugin.configurablefilename.template.FilenameTemplate;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering templates that only use built-in variables should allocate nothing but the resulting filename. Compare the
+ * {@code gc.alloc.rate.norm} of {@code render} with the one of {@code copyResult}, which only allocates a string of the
+ * same length.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AllocationBenchmark {
+
+    @Param({"${NAME}", "${NOW}_${NAME}", "V${NOW;yyyyMMddHHmmssSSS}__${NAME}", "${USER}-${NOW;EEE-dd-MMM-yyyy_hh.mm.a}-${SEQ;4}-${NAME}",
+            "${USER|upper}-${TICKET|prefix:_}${NAME|camel}-${NAME|trim|lower|slug|max:16}"})
+    public String source;
+
+    private FilenameTemplate template;
+    private char[] result;
+    private long sequence;
+
+    @Setup
+    public void setUp() {
+        template = FilenameTemplate.compile(source);
+        result = template.render("add_customer_table.sql", System.currentTimeMillis(), 1).toCharArray();
+    }
+
+    @Benchmark
+    public String render() {
+        return template.render("add_customer_table.sql", System.currentTimeMillis(), ++sequence);
+    }
+
+    @Benchmark
+    public String copyResult() {
+        return new String(result);
+    }
+}
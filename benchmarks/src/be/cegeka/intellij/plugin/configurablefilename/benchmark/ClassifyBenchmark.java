@@ -0,0 +1,108 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+package be.cegeka.intellij.plugin.configurablefilename.benchmark;
+
+import be.cegeka.intellij.plugin.configurablefilename.template.FilenameTemplate;
+import be.cegeka.intellij.plugin.configurablefilename.template.TemplateMatcher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finding the template of a filename among N configured types, with the combined matcher and by parsing the filename
+ * with every template in turn. One in four filenames matches no template.
+ * <p>
+ * With distinct affixes every type starts or ends with its own text, the best case for the matcher. With shared
+ * affixes the templates start with a variable and end with .sql, as in a catalog of migrations, and every template
+ * has to be tried.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClassifyBenchmark {
+
+    private static final String[] DISTINCT_SHAPES = {
+            "V%d__${NOW;yyyyMMddHHmmss}__${NAME}", "${NOW}_${NAME}.t%d", "${SEQ;4}-${NAME}.k%d", "T%d-${USER}-${NAME}"
+    };
+    private static final String[] SHARED_SHAPES = {
+            "${NOW;yyyyMMddHHmmss}__v%d__${NAME}.sql", "${NOW}_t%d_${NAME}.sql", "${SEQ;4}-k%d-${NAME}.sql", "${USER}-T%d-${NAME}.sql"
+    };
+
+    @Param({"10", "100", "1000"})
+    public int typeCount;
+
+    @Param({"distinct", "shared"})
+    public String affixes;
+
+    private FilenameTemplate[] templates;
+    private String[] types;
+    private TemplateMatcher<String> matcher;
+    private String[] filenames;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        boolean shared = "shared".equals(affixes);
+        String[] shapes = shared ? SHARED_SHAPES : DISTINCT_SHAPES;
+        Map<String, FilenameTemplate> byType = new LinkedHashMap<String, FilenameTemplate>();
+        for (int i = 0; i < typeCount; i++) {
+            byType.put("Type" + i, FilenameTemplate.compile(String.format(shapes[i % shapes.length], i / shapes.length)));
+        }
+        templates = byType.values().toArray(new FilenameTemplate[typeCount]);
+        types = byType.keySet().toArray(new String[typeCount]);
+        matcher = TemplateMatcher.create(byType);
+
+        Random random = new Random(42);
+        filenames = new String[1024];
+        for (int i = 0; i < filenames.length; i++) {
+            // The shared templates add the extension themselves, filenames without a template still end with it
+            String name = "add_customer_table_" + i + (shared ? "" : ".sql");
+            filenames[i] = i % 4 == 3 ? "add_customer_table_" + i + ".sql"
+                    : templates[random.nextInt(typeCount)].render(name, 1456789012345L + i * 1000L, i);
+        }
+    }
+
+    @Benchmark
+    public String combined() {
+        return matcher.classify(filenames[next++ & 1023]);
+    }
+
+    @Benchmark
+    public String eachTemplate() {
+        String filename = filenames[next++ & 1023];
+        for (int i = 0; i < templates.length; i++) {
+            if (templates[i].parse(filename) != null) {
+                return types[i];
+            }
+        }
+        return null;
+    }
+}
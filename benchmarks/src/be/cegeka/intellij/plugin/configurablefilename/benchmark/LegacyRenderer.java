@@ -0,0 +1,66 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.cegeka.intellij.plugin.configurablefilename.benchmark;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The regex based rendering the plugin used before templates were compiled, kept as a reference point.
+ */
+final class LegacyRenderer {
+
+    private static final Pattern VARIABLE_PATTERN = Pattern.compile("\\$\\{([^}]+)\\}");
+
+    private LegacyRenderer() {
+    }
+
+    static String render(String template, String newFileName) {
+        String result = template;
+
+        Matcher matcher = VARIABLE_PATTERN.matcher(result);
+        Date timestamp = new Date();
+        while (matcher.find()) {
+            String variable = matcher.group(1);
+            String replacement = "";
+
+            if ("NOW".equals(variable)) {
+                replacement = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(timestamp);
+            } else if ("USER".equals(variable)) {
+                replacement = System.getProperty("user.name");
+            } else if ("NAME".equals(variable)) {
+                replacement = newFileName;
+            } else if (variable.startsWith("NOW;")) {
+                replacement = new SimpleDateFormat(variable.substring(4)).format(timestamp);
+            }
+            result = matcher.replaceFirst(replacement);
+            matcher.reset(result);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.cegeka.intellij.plugin.configurablefilename.benchmark;
+
+import be.cegeka.intellij.plugin.configurablefilename.template.FilenameTemplate;
+import be.cegeka.intellij.plugin.configurablefilename.template.RenderContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBenchmark {
+
+    @Param({"1", "4", "16", "64"})
+    public int variableCount;
+
+    @Param({"0", "16", "128"})
+    public int literalLength;
+
+    private String source;
+    private FilenameTemplate template;
+
+    @Setup
+    public void setUp() {
+        source = Templates.create(variableCount, literalLength);
+        template = FilenameTemplate.compile(source);
+    }
+
+    @Benchmark
+    public FilenameTemplate compile() {
+        return FilenameTemplate.compile(source);
+    }
+
+    @Benchmark
+    public String render() {
+        return template.render(new RenderContext("V42__add_customer_table.sql", System.currentTimeMillis()));
+    }
+
+    @Benchmark
+    public String legacyRender() {
+        return LegacyRenderer.render(source, "V42__add_customer_table.sql");
+    }
+}
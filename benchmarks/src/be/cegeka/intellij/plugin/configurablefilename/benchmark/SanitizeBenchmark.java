@@ -0,0 +1,78 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+package be.cegeka.intellij.plugin.configurablefilename.benchmark;
+
+import be.cegeka.intellij.plugin.configurablefilename.template.FileSystemProfile;
+import be.cegeka.intellij.plugin.configurablefilename.template.FilenameSanitizer;
+import be.cegeka.intellij.plugin.configurablefilename.template.FilenameTemplate;
+import be.cegeka.intellij.plugin.configurablefilename.template.VariableResolver;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering with a sanitizer, next to rendering without one and to sanitizing the rendered string afterwards. The first
+ * template is known to be safe when it is compiled, so {@code renderSanitized} should cost the same as {@code render}.
+ * The second one contains a colon and a name that may contain anything, so it is scanned and rewritten in one pass.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SanitizeBenchmark {
+
+    @Param({"V${NOW;yyyyMMddHHmmss}__${NAME|snake}", "${NOW;yyyy-MM-dd HH:mm}_${NAME}"})
+    public String source;
+
+    @Param({"_", ""})
+    public String replacement;
+
+    private FilenameTemplate template;
+    private FilenameSanitizer sanitizer;
+    private long sequence;
+
+    @Setup
+    public void setUp() {
+        template = FilenameTemplate.compile(source);
+        sanitizer = new FilenameSanitizer(FileSystemProfile.PORTABLE, replacement);
+    }
+
+    @Benchmark
+    public String render() {
+        return template.render("add customer: table.sql", System.currentTimeMillis(), ++sequence);
+    }
+
+    @Benchmark
+    public String renderSanitized() {
+        return template.render("add customer: table.sql", System.currentTimeMillis(), ++sequence, VariableResolver.NONE, sanitizer);
+    }
+
+    @Benchmark
+    public String renderThenSanitize() {
+        return sanitizer.sanitize(template.render("add customer: table.sql", System.currentTimeMillis(), ++sequence));
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.cegeka.intellij.plugin.configurablefilename.benchmark;
+
+final class Templates {
+
+    private static final String[] VARIABLES = {"${NOW}", "${NAME}", "${USER}", "${NOW;yyyyMMddHHmmssSSS}", "${NOW;EEE-dd-MMM-yyyy_hh.mm.a}"};
+
+    private Templates() {
+    }
+
+    static String create(int variableCount, int literalLength) {
+        StringBuilder literal = new StringBuilder(literalLength);
+        for (int i = 0; i < literalLength; i++) {
+            literal.append((char) ('a' + i % 26));
+        }
+
+        StringBuilder template = new StringBuilder();
+        template.append(literal);
+        for (int i = 0; i < variableCount; i++) {
+            template.append(VARIABLES[i % VARIABLES.length]).append(literal);
+        }
+        return template.toString();
+    }
+}
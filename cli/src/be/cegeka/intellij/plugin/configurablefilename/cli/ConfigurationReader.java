@@ -0,0 +1,193 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+package be.cegeka.intellij.plugin.configurablefilename.cli;
+
+import be.cegeka.intellij.plugin.configurablefilename.settings.ConfigurableFilename;
+import be.cegeka.intellij.plugin.configurablefilename.template.UniqueSuffix;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Reads the configured types the way the plugin stores them: the project settings in configurable-filename.xml and the
+ * shared templates in filename-templates, both in the .idea directory.
+ */
+final class ConfigurationReader {
+
+    static final String SETTINGS_FILE = "configurable-filename.xml";
+    static final String TEMPLATES_DIRECTORY = "filename-templates";
+
+    static final String FILE_SYSTEM_OPTION = "fileSystemProfile";
+    static final String REPLACEMENT_OPTION = "illegalCharacterReplacement";
+
+    private static final String ELEMENT = "ConfigurableFilename";
+
+    private ConfigurationReader() {
+    }
+
+    /**
+     * Reads a .idea directory, a settings file or a single shared template file.
+     */
+    static List<ConfigurableFilename> read(Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            return readFile(path);
+        }
+
+        List<ConfigurableFilename> result = new ArrayList<ConfigurableFilename>();
+        Set<String> types = new HashSet<String>();
+        Path settings = path.resolve(SETTINGS_FILE);
+        if (Files.isRegularFile(settings)) {
+            for (ConfigurableFilename filename : readFile(settings)) {
+                result.add(filename);
+                types.add(filename.getType());
+            }
+        }
+
+        Path templates = path.resolve(TEMPLATES_DIRECTORY);
+        if (Files.isDirectory(templates)) {
+            List<Path> files = new ArrayList<Path>();
+            DirectoryStream<Path> stream = Files.newDirectoryStream(templates, "*.xml");
+            try {
+                for (Path file : stream) {
+                    files.add(file);
+                }
+            } finally {
+                stream.close();
+            }
+            Collections.sort(files);
+            // Project settings override shared templates of the same type, as in the IDE
+            for (Path file : files) {
+                for (ConfigurableFilename filename : readFile(file)) {
+                    if (types.add(filename.getType())) {
+                        result.add(filename);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads the project options stored next to the types, such as {@link #FILE_SYSTEM_OPTION}, from a .idea directory
+     * or a settings file. Options the plugin left at their default are not stored and missing from the result.
+     */
+    static Map<String, String> readSettings(Path path) throws IOException {
+        Path file = Files.isDirectory(path) ? path.resolve(SETTINGS_FILE) : path;
+        Map<String, String> result = new HashMap<String, String>();
+        if (!Files.isRegularFile(file)) return result;
+
+        NodeList components = parse(file).getElementsByTagName("component");
+        for (int i = 0; i < components.getLength(); i++) {
+            Element component = (Element) components.item(i);
+            if (!ELEMENT.equals(component.getAttribute("name"))) continue;
+
+            // Only the direct options, the types have options of their own
+            for (Node child = component.getFirstChild(); child != null; child = child.getNextSibling()) {
+                if (child instanceof Element && "option".equals(child.getNodeName()) && ((Element) child).hasAttribute("value")) {
+                    result.put(((Element) child).getAttribute("name"), ((Element) child).getAttribute("value"));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Document parse(Path file) throws IOException {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            DocumentBuilder builder = factory.newDocumentBuilder();
+            return builder.parse(file.toFile());
+        } catch (ParserConfigurationException e) {
+            throw new IOException(e);
+        } catch (SAXException e) {
+            throw new IOException(file + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static List<ConfigurableFilename> readFile(Path file) throws IOException {
+        Document document = parse(file);
+        List<ConfigurableFilename> result = new ArrayList<ConfigurableFilename>();
+        NodeList elements = document.getElementsByTagName(ELEMENT);
+        for (int i = 0; i < elements.getLength(); i++) {
+            ConfigurableFilename filename = readFilename((Element) elements.item(i));
+            if (filename.getType() != null && filename.getTemplate() != null) {
+                result.add(filename);
+            }
+        }
+        return result;
+    }
+
+    private static ConfigurableFilename readFilename(Element element) {
+        ConfigurableFilename filename = new ConfigurableFilename();
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (!(child instanceof Element) || !"option".equals(child.getNodeName())) continue;
+
+            Element option = (Element) child;
+            String name = option.getAttribute("name");
+            String value = option.hasAttribute("value") ? option.getAttribute("value") : null;
+            if ("type".equals(name)) {
+                filename.setType(value);
+            } else if ("defaultExtension".equals(name)) {
+                filename.setDefaultExtension(value);
+            } else if ("template".equals(name)) {
+                filename.setTemplate(value);
+            } else if ("additionalTemplates".equals(name)) {
+                filename.setAdditionalTemplates(readList(option));
+            } else if ("uniqueSuffix".equals(name) && value != null) {
+                try {
+                    filename.setUniqueSuffix(UniqueSuffix.valueOf(value));
+                } catch (IllegalArgumentException e) {
+                    filename.setUniqueSuffix(UniqueSuffix.NONE);
+                }
+            }
+        }
+        return filename;
+    }
+
+    // <option name="additionalTemplates"><list><option value="..."/></list></option>
+    private static List<String> readList(Element option) {
+        List<String> values = new ArrayList<String>();
+        NodeList lists = option.getElementsByTagName("list");
+        if (lists.getLength() == 0) return values;
+
+        for (Node child = lists.item(0).getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof Element && ((Element) child).hasAttribute("value")) {
+                values.add(((Element) child).getAttribute("value"));
+            }
+        }
+        return values;
+    }
+}
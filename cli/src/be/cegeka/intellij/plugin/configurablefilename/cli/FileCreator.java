@@ -0,0 +1,122 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+package be.cegeka.intellij.plugin.configurablefilename.cli;
+
+import be.cegeka.intellij.plugin.configurablefilename.template.FilenameSanitizer;
+import be.cegeka.intellij.plugin.configurablefilename.template.FilenameTemplate;
+import be.cegeka.intellij.plugin.configurablefilename.template.UniqueSuffix;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Creates empty files below a root directory. Directories are created once and sequence numbers are counted per
+ * directory, starting after the highest number already on disk.
+ */
+final class FileCreator {
+
+    private static final int MAX_ATTEMPTS = 1000;
+
+    private final Path root;
+    private final FilenameTemplate template;
+    private final FilenameSanitizer sanitizer;
+    private final UniqueSuffix uniqueSuffix;
+    private final long firstSequence;
+    private final Map<String, Directory> directories = new HashMap<String, Directory>();
+
+    /**
+     * @param firstSequence the sequence number for the first file in every directory, or -1 to continue after the
+     *                      existing files
+     */
+    FileCreator(Path root, FilenameTemplate template, FilenameSanitizer sanitizer, UniqueSuffix uniqueSuffix, long firstSequence) {
+        this.root = root;
+        this.template = template;
+        this.sanitizer = sanitizer;
+        this.uniqueSuffix = uniqueSuffix == null ? UniqueSuffix.NONE : uniqueSuffix;
+        this.firstSequence = firstSequence;
+    }
+
+    long nextSequence(String subdirectory) throws IOException {
+        Directory directory = getDirectory(subdirectory);
+        if (directory.sequence < 0) {
+            directory.sequence = firstSequence >= 0 ? firstSequence - 1 : scan(directory.path);
+        }
+        return ++directory.sequence;
+    }
+
+    /**
+     * Creates the file and returns the name it was created with, which differs from {@code fileName} when a unique
+     * suffix was needed.
+     */
+    String create(String subdirectory, String fileName, long timestamp) throws IOException {
+        Path directory = getDirectory(subdirectory).path;
+        for (int attempt = 0; ; attempt++) {
+            String candidate = uniqueSuffix.candidate(fileName, attempt, timestamp);
+            try {
+                Files.createFile(directory.resolve(candidate));
+                return candidate;
+            } catch (FileAlreadyExistsException e) {
+                if (uniqueSuffix == UniqueSuffix.NONE || attempt == MAX_ATTEMPTS) throw e;
+            }
+        }
+    }
+
+    private Directory getDirectory(String subdirectory) throws IOException {
+        Directory directory = directories.get(subdirectory);
+        if (directory == null) {
+            Path path = subdirectory.isEmpty() ? root : root.resolve(subdirectory);
+            directory = new Directory(Files.createDirectories(path));
+            directories.put(subdirectory, directory);
+        }
+        return directory;
+    }
+
+    private long scan(Path directory) throws IOException {
+        long max = 0;
+        DirectoryStream<Path> children = Files.newDirectoryStream(directory);
+        try {
+            for (Path child : children) {
+                max = Math.max(max, template.parseSequence(child.getFileName().toString(), sanitizer));
+            }
+        } finally {
+            children.close();
+        }
+        return max;
+    }
+
+    private static final class Directory {
+        final Path path;
+        long sequence = -1;
+
+        Directory(Path path) {
+            this.path = path;
+        }
+    }
+}
@@ -0,0 +1,386 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+package be.cegeka.intellij.plugin.configurablefilename.cli;
+
+import be.cegeka.intellij.plugin.configurablefilename.settings.ConfigurableFilename;
+import be.cegeka.intellij.plugin.configurablefilename.template.Clock;
+import be.cegeka.intellij.plugin.configurablefilename.template.FileSystemProfile;
+import be.cegeka.intellij.plugin.configurablefilename.template.FilenameSanitizer;
+import be.cegeka.intellij.plugin.configurablefilename.template.FilenameTemplate;
+import be.cegeka.intellij.plugin.configurablefilename.template.TemplateProblem;
+import be.cegeka.intellij.plugin.configurablefilename.template.TimestampSource;
+import be.cegeka.intellij.plugin.configurablefilename.template.UniqueSuffix;
+import be.cegeka.intellij.plugin.configurablefilename.template.VariableResolver;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Renders filenames with a configured template outside the IDE. Reads one name per line from a file or standard input
+ * and writes one filename per line, or creates the files with --create.
+ */
+public final class FilenameCli {
+
+    static final int EXIT_OK = 0;
+    static final int EXIT_ERROR = 1;
+    static final int EXIT_USAGE = 2;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final String USAGE = "Usage: configurable-filename [options] [input]\n"
+            + "Reads one name per line from input, or from standard input, and writes the rendered filenames.\n"
+            + "\n"
+            + "  --config <path>       .idea directory, configurable-filename.xml or a shared template file (default .idea)\n"
+            + "  --type <type>         configured type to use\n"
+            + "  --template <template> template to use instead of a configured type\n"
+            + "  --additional <template> template of a file created with every name, can be repeated\n"
+            + "  --extension <ext>     default extension, overrides the one of the type\n"
+            + "  --create <dir>        create the files below this directory\n"
+            + "  --output <file>       write the filenames to this file instead of standard output\n"
+            + "  --timestamp <millis>  value of ${NOW} (default the current time)\n"
+            + "  --unique-timestamps   give every name a later ${NOW}, one unit of the finest date field apart\n"
+            + "  --sequence <n>        first value of ${SEQ} in every directory (default 1, or after the existing files)\n"
+            + "  --var <name>=<value>  value of a provided variable, e.g. --var MODULE=core or --var 'ENV;HOME=/home'\n"
+            + "  --file-system <fs>    unix, mac, windows or portable: replace characters not allowed there\n"
+            + "                        (default the project setting, or this operating system)\n"
+            + "  --replacement <text>  text written instead of such characters, may be empty (default the project setting, or _)\n"
+            + "  --list                list the configured types\n";
+
+    private String config = ".idea";
+    private String type;
+    private String templateSource;
+    private final List<String> additionalSources = new ArrayList<String>();
+    private String extension;
+    private boolean extensionSet;
+    private String createRoot;
+    private String output;
+    private String input;
+    private Long fixedTimestamp;
+    private boolean uniqueTimestamps;
+    private long sequence = -1;
+    private boolean list;
+    private final Map<String, String> variables = new HashMap<String, String>();
+    // Null to use the project settings
+    private FileSystemProfile fileSystem;
+    private String replacement;
+
+    private FilenameCli() {
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+    static int run(String[] args) {
+        FilenameCli cli = new FilenameCli();
+        try {
+            cli.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            return EXIT_USAGE;
+        }
+        try {
+            return cli.execute();
+        } catch (IOException e) {
+            System.err.println("error: " + e.getMessage());
+            return EXIT_ERROR;
+        }
+    }
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if ("--list".equals(arg)) {
+                list = true;
+            } else if ("--unique-timestamps".equals(arg)) {
+                uniqueTimestamps = true;
+            } else if ("--help".equals(arg) || "-h".equals(arg)) {
+                throw new IllegalArgumentException("");
+            } else if (arg.startsWith("--")) {
+                if (i + 1 == args.length) throw new IllegalArgumentException("missing value for " + arg);
+                String value = args[++i];
+                if ("--config".equals(arg)) {
+                    config = value;
+                } else if ("--type".equals(arg)) {
+                    type = value;
+                } else if ("--template".equals(arg)) {
+                    templateSource = value;
+                } else if ("--additional".equals(arg)) {
+                    additionalSources.add(value);
+                } else if ("--extension".equals(arg)) {
+                    extension = value.isEmpty() ? null : value;
+                    extensionSet = true;
+                } else if ("--create".equals(arg)) {
+                    createRoot = value;
+                } else if ("--output".equals(arg)) {
+                    output = value;
+                } else if ("--timestamp".equals(arg)) {
+                    fixedTimestamp = parseLong(arg, value);
+                } else if ("--sequence".equals(arg)) {
+                    sequence = parseLong(arg, value);
+                } else if ("--var".equals(arg)) {
+                    int separator = value.indexOf('=');
+                    if (separator <= 0) throw new IllegalArgumentException("expected <name>=<value> for --var: " + value);
+                    variables.put(value.substring(0, separator), value.substring(separator + 1));
+                } else if ("--file-system".equals(arg)) {
+                    fileSystem = parseFileSystem(value);
+                } else if ("--replacement".equals(arg)) {
+                    replacement = value;
+                } else {
+                    throw new IllegalArgumentException("unknown option " + arg);
+                }
+            } else if (input == null) {
+                input = arg;
+            } else {
+                throw new IllegalArgumentException("unexpected argument " + arg);
+            }
+        }
+        if (!list && (type == null) == (templateSource == null)) {
+            throw new IllegalArgumentException("specify either --type or --template");
+        }
+    }
+
+    private static FileSystemProfile parseFileSystem(String value) {
+        for (FileSystemProfile profile : FileSystemProfile.values()) {
+            if (profile.name().equalsIgnoreCase(value)) return profile;
+        }
+        throw new IllegalArgumentException("unknown file system " + value);
+    }
+
+    private static long parseLong(String option, String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("expected a number for " + option + ": " + value);
+        }
+    }
+
+    private int execute() throws IOException {
+        FilenameSanitizer sanitizer;
+        try {
+            sanitizer = createSanitizer();
+        } catch (IllegalArgumentException e) {
+            System.err.println("error: " + e.getMessage());
+            return EXIT_USAGE;
+        }
+
+        UniqueSuffix uniqueSuffix = UniqueSuffix.NONE;
+        if (list || type != null) {
+            List<ConfigurableFilename> filenames = ConfigurationReader.read(Paths.get(config));
+            if (list) {
+                for (ConfigurableFilename filename : filenames) {
+                    System.out.println(filename.getType() + "\t" + filename.getTemplate());
+                }
+                return EXIT_OK;
+            }
+            ConfigurableFilename filename = find(filenames, type);
+            if (filename == null) {
+                System.err.println("error: no type '" + type + "' in " + config);
+                return EXIT_ERROR;
+            }
+            templateSource = filename.getTemplate();
+            additionalSources.addAll(filename.getAdditionalTemplates());
+            if (!extensionSet) extension = filename.getDefaultExtension();
+            uniqueSuffix = filename.getUniqueSuffix();
+        }
+
+        Set<String> knownVariables = new HashSet<String>(Collections.singleton("ENV"));
+        for (String variable : variables.keySet()) {
+            int separator = variable.indexOf(';');
+            knownVariables.add(separator < 0 ? variable : variable.substring(0, separator));
+        }
+        FilenameTemplate[] templates = new FilenameTemplate[1 + additionalSources.size()];
+        for (int i = 0; i < templates.length; i++) {
+            templates[i] = FilenameTemplate.compile(i == 0 ? templateSource : additionalSources.get(i - 1), knownVariables);
+            for (TemplateProblem problem : templates[i].getProblems()) {
+                System.err.println("warning: " + templates[i] + ": " + problem);
+            }
+        }
+        FilenameTemplate template = templates[0];
+
+        FileCreator creator = createRoot == null ? null
+                : new FileCreator(Paths.get(createRoot), template, sanitizer, uniqueSuffix, sequence);
+        BufferedReader reader = input == null
+                ? new BufferedReader(new InputStreamReader(System.in, UTF_8), 1 << 16)
+                : new BufferedReader(new InputStreamReader(new FileInputStream(input), UTF_8), 1 << 16);
+        try {
+            LineWriter writer = new LineWriter(openOutput(), UTF_8);
+            try {
+                render(reader, writer, templates, creator, sanitizer);
+            } finally {
+                writer.close();
+            }
+        } finally {
+            reader.close();
+        }
+        return EXIT_OK;
+    }
+
+    /**
+     * Writes the main file and then the additional files of every name, all rendered with the same timestamp and
+     * sequence number. ${NAME} in the additional files is the name without the default extension.
+     */
+    private void render(BufferedReader reader, LineWriter writer, FilenameTemplate[] templates, FileCreator creator,
+                        FilenameSanitizer sanitizer) throws IOException {
+        FilenameTemplate template = templates[0];
+        long resolution = 0;
+        for (FilenameTemplate each : templates) {
+            long templateResolution = each.getTimestampResolution();
+            if (templateResolution > 0 && (resolution == 0 || templateResolution < resolution)) {
+                resolution = templateResolution;
+            }
+        }
+        VariableResolver resolver = new ArgumentResolver(variables);
+        TimestampSource timestamps = new TimestampSource(fixedTimestamp == null ? Clock.SYSTEM : new FixedClock(fixedTimestamp));
+        long timestamp = uniqueTimestamps ? 0 : timestamps.next();
+        Map<String, long[]> sequences = template.usesSequence() && creator == null ? new HashMap<String, long[]>() : null;
+        StringBuilder line = new StringBuilder(128);
+        String read;
+        while ((read = reader.readLine()) != null) {
+            String path = read.trim().replace('\\', '/');
+            if (path.isEmpty()) continue;
+
+            int separator = path.lastIndexOf('/');
+            String subdirectory = separator < 0 ? "" : path.substring(0, separator);
+            String enteredName = path.substring(separator + 1);
+            String name = getFileName(enteredName);
+
+            if (uniqueTimestamps) {
+                timestamp = timestamps.next(resolution);
+            }
+
+            long value = 0;
+            if (creator != null && template.usesSequence()) {
+                value = creator.nextSequence(subdirectory);
+            } else if (sequences != null) {
+                long[] counter = sequences.get(subdirectory);
+                if (counter == null) {
+                    counter = new long[]{sequence >= 0 ? sequence - 1 : 0};
+                    sequences.put(subdirectory, counter);
+                }
+                value = ++counter[0];
+            }
+
+            for (int i = 0; i < templates.length; i++) {
+                line.setLength(0);
+                line.append(path, 0, separator + 1);
+                templates[i].renderTo(line, i == 0 ? name : enteredName, timestamp, value, resolver, sanitizer);
+                if (creator != null) {
+                    String created = creator.create(subdirectory, line.substring(separator + 1), timestamp);
+                    line.setLength(separator + 1);
+                    line.append(created);
+                }
+                writer.writeLine(line);
+            }
+        }
+    }
+
+    /**
+     * Replaces illegal characters as the project settings say, --file-system and --replacement override them. Without
+     * settings the file system of this operating system is checked, as in the IDE.
+     */
+    private FilenameSanitizer createSanitizer() throws IOException {
+        Map<String, String> settings = fileSystem != null && replacement != null
+                ? Collections.<String, String>emptyMap() : ConfigurationReader.readSettings(Paths.get(config));
+        FileSystemProfile profile = fileSystem != null ? fileSystem
+                : FileSystemProfile.forName(settings.get(ConfigurationReader.FILE_SYSTEM_OPTION));
+        if (replacement != null) {
+            if (!profile.isLegal(replacement)) {
+                throw new IllegalArgumentException("--replacement '" + replacement + "' is not allowed in a filename on " + profile);
+            }
+            return new FilenameSanitizer(profile, replacement);
+        }
+        // A configured replacement the file system does not allow falls back to the default one, as in the IDE
+        String configured = settings.get(ConfigurationReader.REPLACEMENT_OPTION);
+        return new FilenameSanitizer(profile, configured != null && profile.isLegal(configured)
+                ? configured : FilenameSanitizer.DEFAULT_REPLACEMENT);
+    }
+
+    /**
+     * Appends the default extension to names without one, as the New menu does before rendering.
+     */
+    private String getFileName(String name) {
+        if (extension == null) return name;
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 && dot < name.length() - 1 ? name : name + "." + extension;
+    }
+
+    private WritableByteChannel openOutput() throws IOException {
+        if (output == null) {
+            return Channels.newChannel(new FileOutputStream(FileDescriptor.out));
+        }
+        return FileChannel.open(Paths.get(output), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private static ConfigurableFilename find(List<ConfigurableFilename> filenames, String type) {
+        for (ConfigurableFilename filename : filenames) {
+            if (type.equals(filename.getType())) return filename;
+        }
+        return null;
+    }
+
+    private static final class FixedClock implements Clock {
+
+        private final long time;
+
+        FixedClock(long time) {
+            this.time = time;
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return time;
+        }
+    }
+
+    /**
+     * Resolves provided variables from --var values; a value for NAME;argument wins over one for NAME. ${ENV;...}
+     * falls back to the environment, like in the IDE.
+     */
+    private static final class ArgumentResolver implements VariableResolver {
+
+        private final Map<String, String> values;
+
+        ArgumentResolver(Map<String, String> values) {
+            this.values = values;
+        }
+
+        @Override
+        public String resolve(String name, String argument) {
+            String value = argument == null ? null : values.get(name + ";" + argument);
+            if (value == null) value = values.get(name);
+            if (value == null && "ENV".equals(name) && argument != null) value = System.getenv(argument.trim());
+            return value;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+package be.cegeka.intellij.plugin.configurablefilename.scope;
+
+import java.util.*;
+
+/**
+ * Finds the keys whose scope contains a directory with one walk down a trie of all scopes. A scope is a path relative to
+ * the project root, such as {@code src/main/resources/db/migration}, and covers that directory and everything below it.
+ * A segment can be {@code *} for any one directory or {@code **} for any number of directories. Keys without scopes
+ * apply everywhere.
+ */
+public final class ScopeIndex<T> {
+
+    private static final String ANY_DIRECTORY = "*";
+    private static final String ANY_DEPTH = "**";
+
+    private final List<T> keys;
+    private final BitSet everywhere;
+    private final Node root;
+    private final boolean scoped;
+
+    private ScopeIndex(List<T> keys, BitSet everywhere, Node root, boolean scoped) {
+        this.keys = keys;
+        this.everywhere = everywhere;
+        this.root = root;
+        this.scoped = scoped;
+    }
+
+    /**
+     * The iteration order of the map is the order of the keys returned by {@link #find}. An empty collection of scopes
+     * means the key applies everywhere.
+     */
+    public static <T> ScopeIndex<T> create(Map<T, ? extends Collection<String>> scopes) {
+        List<T> keys = new ArrayList<T>(scopes.size());
+        BitSet everywhere = new BitSet();
+        Node root = new Node(false);
+        boolean scoped = false;
+
+        for (Map.Entry<T, ? extends Collection<String>> entry : scopes.entrySet()) {
+            int index = keys.size();
+            keys.add(entry.getKey());
+            Collection<String> patterns = entry.getValue();
+            if (patterns == null || patterns.isEmpty()) {
+                everywhere.set(index);
+                continue;
+            }
+
+            scoped = true;
+            for (String pattern : patterns) {
+                Node node = root;
+                for (String segment : split(pattern)) {
+                    node = node.child(segment);
+                }
+                node.keys.set(index);
+            }
+        }
+        return new ScopeIndex<T>(Collections.unmodifiableList(keys), everywhere, root, scoped);
+    }
+
+    /**
+     * False if every key applies everywhere, {@link #find} then always returns all keys.
+     */
+    public boolean isScoped() {
+        return scoped;
+    }
+
+    public List<T> getKeys() {
+        return keys;
+    }
+
+    /**
+     * Returns the keys that apply to a directory, in order.
+     *
+     * @param path the directory relative to the project root with '/' as separator, "" for the root itself, or null
+     *             for a directory outside the project where only keys without a scope apply
+     */
+    public List<T> find(String path) {
+        if (!scoped) return keys;
+
+        BitSet result = (BitSet) everywhere.clone();
+        if (path != null) {
+            List<Node> active = new ArrayList<Node>();
+            enter(root, active, result);
+            for (String segment : split(path)) {
+                List<Node> next = new ArrayList<Node>();
+                for (Node node : active) {
+                    if (node.anyDepth) enter(node, next, result);
+                    Node child = node.children == null ? null : node.children.get(segment);
+                    if (child != null) enter(child, next, result);
+                    if (node.anyDirectory != null) enter(node.anyDirectory, next, result);
+                }
+                if (next.isEmpty()) break;
+                active = next;
+            }
+        }
+
+        List<T> found = new ArrayList<T>(result.cardinality());
+        for (int i = result.nextSetBit(0); i >= 0; i = result.nextSetBit(i + 1)) {
+            found.add(keys.get(i));
+        }
+        return found;
+    }
+
+    // A ** matches no directory as well, so its node is entered together with its parent
+    private static void enter(Node node, List<Node> active, BitSet result) {
+        if (active.contains(node)) return;
+
+        active.add(node);
+        result.or(node.keys);
+        if (node.anyDepthChild != null) enter(node.anyDepthChild, active, result);
+    }
+
+    private static List<String> split(String path) {
+        List<String> segments = new ArrayList<String>();
+        for (String segment : path.replace('\\', '/').split("/")) {
+            segment = segment.trim();
+            if (!segment.isEmpty() && !".".equals(segment)) {
+                segments.add(segment);
+            }
+        }
+        return segments;
+    }
+
+    private static final class Node {
+        final boolean anyDepth;
+        final BitSet keys = new BitSet();
+        Map<String, Node> children;
+        Node anyDirectory;
+        Node anyDepthChild;
+
+        Node(boolean anyDepth) {
+            this.anyDepth = anyDepth;
+        }
+
+        Node child(String segment) {
+            if (ANY_DEPTH.equals(segment)) {
+                if (anyDepth) return this;
+                if (anyDepthChild == null) anyDepthChild = new Node(true);
+                return anyDepthChild;
+            }
+            if (ANY_DIRECTORY.equals(segment)) {
+                if (anyDirectory == null) anyDirectory = new Node(false);
+                return anyDirectory;
+            }
+            if (children == null) children = new HashMap<String, Node>();
+            Node child = children.get(segment);
+            if (child == null) {
+                child = new Node(false);
+                children.put(segment, child);
+            }
+            return child;
+        }
+    }
+}
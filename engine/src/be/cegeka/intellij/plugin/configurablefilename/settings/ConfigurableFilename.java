@@ -0,0 +1,132 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.cegeka.intellij.plugin.configurablefilename.settings;
+
+import be.cegeka.intellij.plugin.configurablefilename.template.UniqueSuffix;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ConfigurableFilename {
+
+    private String type;
+    private String defaultExtension;
+    private String template;
+    private UniqueSuffix uniqueSuffix = UniqueSuffix.NONE;
+    private List<String> additionalTemplates = new ArrayList<String>();
+    private List<String> scopes = new ArrayList<String>();
+
+    public ConfigurableFilename() {
+    }
+
+    public ConfigurableFilename(String type, String defaultExtension, String template) {
+        this.type = type;
+        this.defaultExtension = defaultExtension;
+        this.template = template;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getDefaultExtension() {
+        return defaultExtension;
+    }
+
+    public void setDefaultExtension(String defaultExtension) {
+        this.defaultExtension = defaultExtension;
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    public void setTemplate(String template) {
+        this.template = template;
+    }
+
+    public UniqueSuffix getUniqueSuffix() {
+        return uniqueSuffix;
+    }
+
+    public void setUniqueSuffix(UniqueSuffix uniqueSuffix) {
+        this.uniqueSuffix = uniqueSuffix;
+    }
+
+    /**
+     * Templates of the files created together with the main file, such as a test or a down migration. They are rendered
+     * with the same timestamp and sequence number, ${NAME} is the name as entered, without the default extension.
+     */
+    public List<String> getAdditionalTemplates() {
+        return additionalTemplates;
+    }
+
+    public void setAdditionalTemplates(List<String> additionalTemplates) {
+        this.additionalTemplates = additionalTemplates == null ? new ArrayList<String>() : additionalTemplates;
+    }
+
+    /**
+     * Directories relative to the project root where the type is offered in the New menu, with their subdirectories.
+     * Segments can be * or **. Empty to offer the type everywhere.
+     */
+    public List<String> getScopes() {
+        return scopes;
+    }
+
+    public void setScopes(List<String> scopes) {
+        this.scopes = scopes == null ? new ArrayList<String>() : scopes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        ConfigurableFilename that = (ConfigurableFilename) o;
+
+        if (type != null ? !type.equals(that.type) : that.type != null) return false;
+        if (defaultExtension != null ? !defaultExtension.equals(that.defaultExtension) : that.defaultExtension != null) return false;
+        if (template != null ? !template.equals(that.template) : that.template != null) return false;
+        if (uniqueSuffix != that.uniqueSuffix) return false;
+        if (!additionalTemplates.equals(that.additionalTemplates)) return false;
+        return scopes.equals(that.scopes);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = type != null ? type.hashCode() : 0;
+        result = 31 * result + (defaultExtension != null ? defaultExtension.hashCode() : 0);
+        result = 31 * result + (template != null ? template.hashCode() : 0);
+        result = 31 * result + (uniqueSuffix != null ? uniqueSuffix.hashCode() : 0);
+        result = 31 * result + additionalTemplates.hashCode();
+        result = 31 * result + scopes.hashCode();
+        return result;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.cegeka.intellij.plugin.configurablefilename.template;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A template with every variable but ${NAME} rendered, so it can be rendered for many names cheaply, e.g. for a preview
+ * that is updated on every keystroke.
+ */
+public final class BoundTemplate {
+
+    private final String[] chunks;
+    // The filters applied to the name after each chunk but the last, null where the name is used as is
+    private final Filter[][] nameFilters;
+    // Null when the chunks are sanitized and every name ends up allowed
+    private final FilenameSanitizer nameSanitizer;
+    private final int length;
+
+    private BoundTemplate(List<String> chunks, List<Filter[]> nameFilters, FilenameSanitizer nameSanitizer) {
+        this.chunks = chunks.toArray(new String[chunks.size()]);
+        this.nameFilters = nameFilters.toArray(new Filter[nameFilters.size()][]);
+        this.nameSanitizer = nameSanitizer;
+        int total = 0;
+        for (String chunk : chunks) {
+            total += chunk.length();
+        }
+        this.length = total;
+    }
+
+    /**
+     * Renders everything but the name once. With a sanitizer the rendered chunks are sanitized here, so rendering a name
+     * only looks at the name, and only when it may contain illegal characters.
+     */
+    static BoundTemplate bind(List<Segment> segments, RenderContext context, FilenameSanitizer sanitizer) {
+        List<String> chunks = new ArrayList<String>();
+        List<Filter[]> nameFilters = new ArrayList<Filter[]>();
+        RenderState state = new RenderState().reset(null, context.getTimestamp(), context.getSequence(), context.getResolver());
+        boolean safeNames = true;
+        for (Segment segment : segments) {
+            if (FilteredSegment.unwrap(segment) instanceof NameSegment) {
+                chunks.add(sanitize(state, sanitizer));
+                nameFilters.add(segment instanceof FilteredSegment ? ((FilteredSegment) segment).getFilters() : null);
+                state.buffer.setLength(0);
+                safeNames &= sanitizer == null || segment.isSafeFor(sanitizer.getProfile());
+            } else {
+                segment.appendTo(state);
+            }
+        }
+        chunks.add(sanitize(state, sanitizer));
+        return new BoundTemplate(chunks, nameFilters, safeNames ? null : sanitizer);
+    }
+
+    private static String sanitize(RenderState state, FilenameSanitizer sanitizer) {
+        if (sanitizer != null) {
+            sanitizer.apply(state.buffer, 0, state.scratch);
+        }
+        return state.buffer.toString();
+    }
+
+    public String render(String name) {
+        StringBuilder buffer = new StringBuilder(length + (chunks.length - 1) * name.length());
+        buffer.append(chunks[0]);
+        StringBuilder scratch = null;
+        for (int i = 1; i < chunks.length; i++) {
+            Filter[] filters = nameFilters[i - 1];
+            int start = buffer.length();
+            buffer.append(name);
+            if (filters != null || nameSanitizer != null) {
+                if (scratch == null) scratch = new StringBuilder(name.length());
+                if (filters != null) FilteredSegment.apply(filters, buffer, start, scratch);
+                if (nameSanitizer != null) nameSanitizer.apply(buffer, start, scratch);
+            }
+            buffer.append(chunks[i]);
+        }
+        return buffer.toString();
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+package be.cegeka.intellij.plugin.configurablefilename.template;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * The Gregorian calendar fields of a timestamp in a fixed time zone, computed with primitive arithmetic so formatting a
+ * date does not need a {@link Calendar} or {@link java.util.Date}.
+ */
+final class DateFields {
+
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+    private static final int[] DAYS_BEFORE_MONTH = {0, 31, 59, 90, 120, 151, 181, 212, 243, 273, 304, 334};
+
+    private final TimeZone zone;
+
+    private boolean computed;
+    private long timestamp;
+    private int year;
+    private int month;
+    private int dayOfMonth;
+    private int dayOfYear;
+    private int dayOfWeek;
+    private int hourOfDay;
+    private int minute;
+    private int second;
+    private int millisecond;
+
+    DateFields() {
+        this(TimeZone.getDefault());
+    }
+
+    DateFields(TimeZone zone) {
+        this.zone = zone;
+    }
+
+    DateFields setTimestamp(long timestamp) {
+        if (computed && timestamp == this.timestamp) return this;
+
+        this.timestamp = timestamp;
+        this.computed = true;
+
+        long local = timestamp + zone.getOffset(timestamp);
+        long days = floorDiv(local, MILLIS_PER_DAY);
+        int millisOfDay = (int) (local - days * MILLIS_PER_DAY);
+
+        hourOfDay = millisOfDay / 3600000;
+        minute = millisOfDay / 60000 % 60;
+        second = millisOfDay / 1000 % 60;
+        millisecond = millisOfDay % 1000;
+
+        // 1970-01-01 was a Thursday, Calendar.SUNDAY is 1
+        dayOfWeek = (int) (days + 4 - floorDiv(days + 4, 7) * 7) + Calendar.SUNDAY;
+
+        // Civil date from days since the epoch in the proleptic Gregorian calendar, with years starting on March 1st
+        long shifted = days + 719468;
+        long era = floorDiv(shifted, 146097);
+        long dayOfEra = shifted - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfMarchYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long marchMonth = (5 * dayOfMarchYear + 2) / 153;
+
+        dayOfMonth = (int) (dayOfMarchYear - (153 * marchMonth + 2) / 5 + 1);
+        month = (int) (marchMonth < 10 ? marchMonth + 2 : marchMonth - 10);
+        year = (int) (yearOfEra + era * 400 + (month < 2 ? 1 : 0));
+        dayOfYear = DAYS_BEFORE_MONTH[month] + dayOfMonth + (month > 1 && isLeapYear(year) ? 1 : 0);
+        return this;
+    }
+
+    long getTimestamp() {
+        return timestamp;
+    }
+
+    int get(int calendarField) {
+        switch (calendarField) {
+            case Calendar.YEAR:
+                return year;
+            case Calendar.MONTH:
+                return month;
+            case Calendar.DAY_OF_MONTH:
+                return dayOfMonth;
+            case Calendar.DAY_OF_YEAR:
+                return dayOfYear;
+            case Calendar.DAY_OF_WEEK:
+                return dayOfWeek;
+            case Calendar.HOUR_OF_DAY:
+                return hourOfDay;
+            case Calendar.HOUR:
+                return hourOfDay % 12;
+            case Calendar.AM_PM:
+                return hourOfDay < 12 ? Calendar.AM : Calendar.PM;
+            case Calendar.MINUTE:
+                return minute;
+            case Calendar.SECOND:
+                return second;
+            case Calendar.MILLISECOND:
+                return millisecond;
+            default:
+                throw new IllegalArgumentException("Unsupported calendar field: " + calendarField);
+        }
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+    }
+
+    private static long floorDiv(long x, long y) {
+        long quotient = x / y;
+        return (x % y != 0 && (x < 0) != (y < 0)) ? quotient - 1 : quotient;
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.cegeka.intellij.plugin.configurablefilename.template;
+
+import java.text.DecimalFormatSymbols;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+public abstract class DateFormatter {
+
+    public static final String DEFAULT_PATTERN = "yyyy-MM-dd_HH-mm-ss";
+
+    private static final int CACHE_SIZE = 64;
+
+    private static final long SECONDS = 1000L;
+    private static final long MINUTES = 60 * SECONDS;
+    private static final long HOURS = 60 * MINUTES;
+    private static final long DAYS = 24 * HOURS;
+
+    // Dates covering every month, weekday, AM/PM and single/double digit fields
+    private static final long[] SAMPLES = {0L, 1000000000123L, 1234567890987L, 1456789012345L, 1500000000000L};
+
+    private static final Map<String, DateFormatter> CACHE = new LinkedHashMap<String, DateFormatter>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, DateFormatter> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private final String pattern;
+    private final long resolution;
+    private final ThreadLocal<SimpleDateFormat> parser = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            SimpleDateFormat format = new SimpleDateFormat(pattern);
+            format.setLenient(false);
+            return format;
+        }
+    };
+
+    DateFormatter(String pattern) {
+        this.pattern = pattern;
+        this.resolution = resolution(pattern);
+    }
+
+    private static long resolution(String pattern) {
+        long result = DAYS;
+        boolean quoted = false;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                quoted = !quoted;
+            } else if (!quoted) {
+                if (c == 'S') return 1;
+                if (c == 's') result = Math.min(result, SECONDS);
+                if (c == 'm') result = Math.min(result, MINUTES);
+                if (c == 'H' || c == 'h' || c == 'k' || c == 'K') result = Math.min(result, HOURS);
+            }
+        }
+        return result;
+    }
+
+    public static DateFormatter forPattern(String pattern) {
+        synchronized (CACHE) {
+            DateFormatter formatter = CACHE.get(pattern);
+            if (formatter == null) {
+                formatter = create(pattern);
+                CACHE.put(pattern, formatter);
+            }
+            return formatter;
+        }
+    }
+
+    private static DateFormatter create(String pattern) {
+        // Validates the pattern the same way the rendering used to do it
+        SimpleDateFormat prototype = new SimpleDateFormat(pattern);
+
+        if (!isAsciiDigitLocale()) {
+            return new FallbackDateFormatter(pattern, prototype);
+        }
+        // Also checks that the default calendar is Gregorian, e.g. not the Buddhist calendar of the Thai locale
+        DateFormatter formatter = DEFAULT_PATTERN.equals(pattern) ? new DefaultDateFormatter() : FieldDateFormatter.parse(pattern);
+        if (formatter == null || !formatsLike(formatter, prototype)) {
+            return new FallbackDateFormatter(pattern, prototype);
+        }
+        return formatter;
+    }
+
+    private static boolean formatsLike(DateFormatter formatter, SimpleDateFormat prototype) {
+        for (long sample : SAMPLES) {
+            if (!prototype.format(new Date(sample)).equals(formatter.format(sample))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAsciiDigitLocale() {
+        return DecimalFormatSymbols.getInstance(Locale.getDefault()).getZeroDigit() == '0';
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Returns the number of milliseconds represented by the finest field of the pattern, two timestamps that are at least
+     * this far apart are formatted differently.
+     */
+    public long getResolution() {
+        return resolution;
+    }
+
+    /**
+     * Whether every formatted date is allowed in a filename on the file system. Numbers only format to digits, so the
+     * samples cover the literal text and every month name, weekday and AM/PM marker of the locale.
+     */
+    boolean isSafeFor(FileSystemProfile profile) {
+        DateFields fields = new DateFields();
+        StringBuilder buffer = new StringBuilder(pattern.length() + 8);
+        for (long sample : SAMPLES) {
+            buffer.setLength(0);
+            formatTo(buffer, fields.setTimestamp(sample));
+            if (!profile.isLegal(buffer)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the formatter of the dates this one formats after the sanitizer replaced their illegal characters, or null
+     * if those dates cannot be parsed. Only illegal characters in the literal text of the pattern can be replaced in the
+     * pattern itself, "HH:mm" becomes "HH'_'mm".
+     */
+    DateFormatter sanitize(FilenameSanitizer sanitizer) {
+        if (isSafeFor(sanitizer.getProfile())) return this;
+
+        StringBuilder sanitized = new StringBuilder(pattern.length() + 8);
+        StringBuilder literal = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '\'') {
+                    literal.append(c);
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (!quoted && isPatternLetter(c)) {
+                appendLiteral(sanitized, sanitizer.sanitize(literal.toString()));
+                literal.setLength(0);
+                sanitized.append(c);
+            } else {
+                literal.append(c);
+            }
+        }
+        appendLiteral(sanitized, sanitizer.sanitize(literal.toString()));
+
+        DateFormatter result = forPattern(sanitized.toString());
+        return result.isSafeFor(sanitizer.getProfile()) ? result : null;
+    }
+
+    /**
+     * Appends literal text to a pattern, letters are quoted and a quote is written as two quotes outside quoted text.
+     */
+    private static void appendLiteral(StringBuilder pattern, String literal) {
+        boolean quoted = false;
+        for (int i = 0; i < literal.length(); i++) {
+            char c = literal.charAt(i);
+            if (isPatternLetter(c) != quoted) {
+                pattern.append('\'');
+                quoted = !quoted;
+            }
+            pattern.append(c);
+            if (c == '\'') pattern.append(c);
+        }
+        if (quoted) pattern.append('\'');
+    }
+
+    private static boolean isPatternLetter(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
+    }
+
+    public final String format(long timestamp) {
+        StringBuilder buffer = new StringBuilder(pattern.length() + 8);
+        formatTo(buffer, new DateFields().setTimestamp(timestamp));
+        return buffer.toString();
+    }
+
+    abstract void formatTo(StringBuilder buffer, DateFields fields);
+
+    /**
+     * Appends a regular expression without groups that matches every formatted date, used to find the date in a name.
+     */
+    abstract void appendRegex(StringBuilder regex);
+
+    /**
+     * Parses a formatted date, returns null if the whole text is not a valid date.
+     */
+    final Date parseDate(String text) {
+        ParsePosition position = new ParsePosition(0);
+        Date date = parser.get().parse(text, position);
+        return date != null && position.getIndex() == text.length() ? date : null;
+    }
+
+    static void appendPadded(StringBuilder buffer, long value, int width) {
+        if (value < 0) {
+            buffer.append('-');
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        for (int i = digits; i < width; i++) {
+            buffer.append('0');
+        }
+        buffer.append(value);
+    }
+
+    static void appendTwoDigits(StringBuilder buffer, int value) {
+        buffer.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+}
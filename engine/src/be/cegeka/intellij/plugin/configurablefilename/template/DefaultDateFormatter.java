@@ -0,0 +1,55 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.cegeka.intellij.plugin.configurablefilename.template;
+
+import java.util.Calendar;
+
+final class DefaultDateFormatter extends DateFormatter {
+
+    DefaultDateFormatter() {
+        super(DEFAULT_PATTERN);
+    }
+
+    @Override
+    void formatTo(StringBuilder buffer, DateFields fields) {
+        appendPadded(buffer, fields.get(Calendar.YEAR), 4);
+        buffer.append('-');
+        appendTwoDigits(buffer, fields.get(Calendar.MONTH) + 1);
+        buffer.append('-');
+        appendTwoDigits(buffer, fields.get(Calendar.DAY_OF_MONTH));
+        buffer.append('_');
+        appendTwoDigits(buffer, fields.get(Calendar.HOUR_OF_DAY));
+        buffer.append('-');
+        appendTwoDigits(buffer, fields.get(Calendar.MINUTE));
+        buffer.append('-');
+        appendTwoDigits(buffer, fields.get(Calendar.SECOND));
+    }
+
+    @Override
+    void appendRegex(StringBuilder regex) {
+        regex.append("\\d{4}-\\d{2}-\\d{2}_\\d{2}-\\d{2}-\\d{2}");
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.cegeka.intellij.plugin.configurablefilename.template;
+
+import java.text.DateFormatSymbols;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.regex.Pattern;
+
+final class FieldDateFormatter extends DateFormatter {
+
+    private final Field[] fields;
+
+    private FieldDateFormatter(String pattern, List<Field> fields) {
+        super(pattern);
+        this.fields = fields.toArray(new Field[fields.size()]);
+    }
+
+    static FieldDateFormatter parse(String pattern) {
+        DateFormatSymbols symbols = DateFormatSymbols.getInstance();
+        List<Field> fields = new ArrayList<Field>();
+        StringBuilder literal = new StringBuilder();
+
+        int i = 0;
+        while (i < pattern.length()) {
+            char c = pattern.charAt(i);
+            if (c == '\'') {
+                if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '\'') {
+                    literal.append('\'');
+                    i += 2;
+                    continue;
+                }
+                int end = i + 1;
+                while (end < pattern.length()) {
+                    if (pattern.charAt(end) == '\'') {
+                        if (end + 1 < pattern.length() && pattern.charAt(end + 1) == '\'') {
+                            literal.append('\'');
+                            end += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    literal.append(pattern.charAt(end++));
+                }
+                i = end + 1;
+                continue;
+            }
+            if (!isPatternLetter(c)) {
+                literal.append(c);
+                i++;
+                continue;
+            }
+
+            int count = 1;
+            while (i + count < pattern.length() && pattern.charAt(i + count) == c) {
+                count++;
+            }
+            Field field = createField(c, count, symbols);
+            if (field == null) {
+                return null;
+            }
+            if (literal.length() > 0) {
+                fields.add(new LiteralField(literal.toString()));
+                literal.setLength(0);
+            }
+            fields.add(field);
+            i += count;
+        }
+        if (literal.length() > 0) {
+            fields.add(new LiteralField(literal.toString()));
+        }
+        return new FieldDateFormatter(pattern, fields);
+    }
+
+    private static boolean isPatternLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static Field createField(char letter, int count, DateFormatSymbols symbols) {
+        switch (letter) {
+            case 'y':
+                return count == 2 ? new TwoDigitYearField() : new NumberField(Calendar.YEAR, count, 0);
+            case 'M':
+                if (count >= 4) return new TextField(Calendar.MONTH, symbols.getMonths());
+                if (count == 3) return new TextField(Calendar.MONTH, symbols.getShortMonths());
+                return new NumberField(Calendar.MONTH, count, 1);
+            case 'd':
+                return new NumberField(Calendar.DAY_OF_MONTH, count, 0);
+            case 'D':
+                return new NumberField(Calendar.DAY_OF_YEAR, count, 0);
+            case 'H':
+                return new NumberField(Calendar.HOUR_OF_DAY, count, 0);
+            case 'k':
+                return new ClockHourField(Calendar.HOUR_OF_DAY, count, 24);
+            case 'K':
+                return new NumberField(Calendar.HOUR, count, 0);
+            case 'h':
+                return new ClockHourField(Calendar.HOUR, count, 12);
+            case 'm':
+                return new NumberField(Calendar.MINUTE, count, 0);
+            case 's':
+                return new NumberField(Calendar.SECOND, count, 0);
+            case 'S':
+                return new NumberField(Calendar.MILLISECOND, count, 0);
+            case 'E':
+                return new TextField(Calendar.DAY_OF_WEEK, count >= 4 ? symbols.getWeekdays() : symbols.getShortWeekdays());
+            case 'a':
+                return new TextField(Calendar.AM_PM, symbols.getAmPmStrings());
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    void formatTo(StringBuilder buffer, DateFields dateFields) {
+        for (Field field : fields) {
+            field.appendTo(buffer, dateFields);
+        }
+    }
+
+    @Override
+    void appendRegex(StringBuilder regex) {
+        for (Field field : fields) {
+            field.appendRegex(regex);
+        }
+    }
+
+    private static int maxDigits(int calendarField) {
+        switch (calendarField) {
+            case Calendar.YEAR:
+                return 4;
+            case Calendar.DAY_OF_YEAR:
+            case Calendar.MILLISECOND:
+                return 3;
+            default:
+                return 2;
+        }
+    }
+
+    private static void appendDigitsRegex(StringBuilder regex, int width, int maxDigits) {
+        // Years beyond 9999 are not expected in filenames
+        if (width >= maxDigits) {
+            regex.append("\\d{").append(width).append('}');
+        } else {
+            regex.append("\\d{").append(width).append(',').append(maxDigits).append('}');
+        }
+    }
+
+    private abstract static class Field {
+        abstract void appendTo(StringBuilder buffer, DateFields fields);
+
+        abstract void appendRegex(StringBuilder regex);
+    }
+
+    private static final class LiteralField extends Field {
+        private final String text;
+
+        LiteralField(String text) {
+            this.text = text;
+        }
+
+        @Override
+        void appendTo(StringBuilder buffer, DateFields fields) {
+            buffer.append(text);
+        }
+
+        @Override
+        void appendRegex(StringBuilder regex) {
+            regex.append(Pattern.quote(text));
+        }
+    }
+
+    private static class NumberField extends Field {
+        private final int calendarField;
+        private final int width;
+        private final int offset;
+
+        NumberField(int calendarField, int width, int offset) {
+            this.calendarField = calendarField;
+            this.width = width;
+            this.offset = offset;
+        }
+
+        @Override
+        void appendTo(StringBuilder buffer, DateFields fields) {
+            appendPadded(buffer, fields.get(calendarField) + offset, width);
+        }
+
+        @Override
+        void appendRegex(StringBuilder regex) {
+            int maxDigits = maxDigits(calendarField);
+            appendDigitsRegex(regex, calendarField == Calendar.YEAR ? Math.max(width, maxDigits) : width, maxDigits);
+        }
+    }
+
+    private static final class TwoDigitYearField extends Field {
+        @Override
+        void appendTo(StringBuilder buffer, DateFields fields) {
+            appendTwoDigits(buffer, fields.get(Calendar.YEAR) % 100);
+        }
+
+        @Override
+        void appendRegex(StringBuilder regex) {
+            regex.append("\\d{2}");
+        }
+    }
+
+    private static final class ClockHourField extends Field {
+        private final int calendarField;
+        private final int width;
+        private final int zeroValue;
+
+        ClockHourField(int calendarField, int width, int zeroValue) {
+            this.calendarField = calendarField;
+            this.width = width;
+            this.zeroValue = zeroValue;
+        }
+
+        @Override
+        void appendTo(StringBuilder buffer, DateFields fields) {
+            int value = fields.get(calendarField);
+            appendPadded(buffer, value == 0 ? zeroValue : value, width);
+        }
+
+        @Override
+        void appendRegex(StringBuilder regex) {
+            appendDigitsRegex(regex, width, 2);
+        }
+    }
+
+    private static final class TextField extends Field {
+        private final int calendarField;
+        private final String[] names;
+
+        TextField(int calendarField, String[] names) {
+            this.calendarField = calendarField;
+            this.names = names;
+        }
+
+        @Override
+        void appendTo(StringBuilder buffer, DateFields fields) {
+            buffer.append(names[fields.get(calendarField)]);
+        }
+
+        @Override
+        void appendRegex(StringBuilder regex) {
+            regex.append("(?:");
+            boolean first = true;
+            for (String name : names) {
+                if (name.isEmpty()) continue;
+                if (!first) regex.append('|');
+                regex.append(Pattern.quote(name));
+                first = false;
+            }
+            regex.append(')');
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.cegeka.intellij.plugin.configurablefilename.template;
+
+import java.util.Locale;
+
+/**
+ * The characters a file system does not allow in a filename, as a lookup table. All of them are ASCII, every other
+ * character is allowed.
+ */
+public enum FileSystemProfile {
+
+    UNIX("/\0"),
+    MAC("/:\0"),
+    WINDOWS("<>:\"/\\|?*" + controlCharacters()),
+    // Names that can be created on every supported file system, for projects shared between them
+    PORTABLE(UNIX.illegal + MAC.illegal + WINDOWS.illegal);
+
+    private final String illegal;
+    // Bit c of low is set when character c is illegal, bit c - 64 of high for characters 64 to 127
+    private final long low;
+    private final long high;
+
+    FileSystemProfile(String illegal) {
+        long low = 0;
+        long high = 0;
+        for (int i = 0; i < illegal.length(); i++) {
+            char c = illegal.charAt(i);
+            if (c < 64) {
+                low |= 1L << c;
+            } else {
+                high |= 1L << (c - 64);
+            }
+        }
+        this.illegal = illegal;
+        this.low = low;
+        this.high = high;
+    }
+
+    private static String controlCharacters() {
+        StringBuilder result = new StringBuilder(32);
+        for (char c = 0; c < 32; c++) {
+            result.append(c);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Returns the profile with the given name, or the one of the host when there is none.
+     */
+    public static FileSystemProfile forName(String name) {
+        for (FileSystemProfile profile : values()) {
+            if (profile.name().equals(name)) return profile;
+        }
+        return forHost();
+    }
+
+    /**
+     * Returns the profile of the operating system this runs on, names created there stay as they were before illegal
+     * characters were replaced.
+     */
+    public static FileSystemProfile forHost() {
+        String os = System.getProperty("os.name", "").toLowerCase(Locale.ENGLISH);
+        if (os.startsWith("windows")) return WINDOWS;
+        if (os.startsWith("mac")) return MAC;
+        return UNIX;
+    }
+
+    public boolean isLegal(char c) {
+        if (c < 64) return (low & (1L << c)) == 0;
+        return c >= 128 || (high & (1L << (c - 64))) == 0;
+    }
+
+    /**
+     * Returns the index of the first illegal character at or after {@code from}, or -1 if there is none.
+     */
+    public int indexOfIllegal(CharSequence text, int from) {
+        for (int i = from, length = text.length(); i < length; i++) {
+            if (!isLegal(text.charAt(i))) return i;
+        }
+        return -1;
+    }
+
+    public boolean isLegal(CharSequence text) {
+        return indexOfIllegal(text, 0) < 0;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.cegeka.intellij.plugin.configurablefilename.template;
+
+/**
+ * Replaces the characters a file system does not allow in rendered filenames. Rendering only runs the sanitizer for
+ * templates that can produce such characters, see {@link FilenameTemplate#isSafeFor(FileSystemProfile)}.
+ */
+public final class FilenameSanitizer {
+
+    public static final String DEFAULT_REPLACEMENT = "_";
+
+    private final FileSystemProfile profile;
+    private final String replacement;
+
+    /**
+     * @param replacement the text for every illegal character, empty to leave them out
+     * @throws IllegalArgumentException if the replacement itself is not allowed by the profile
+     */
+    public FilenameSanitizer(FileSystemProfile profile, String replacement) {
+        if (!profile.isLegal(replacement)) {
+            throw new IllegalArgumentException("Replacement '" + replacement + "' is not allowed in a filename on " + profile);
+        }
+        this.profile = profile;
+        this.replacement = replacement;
+    }
+
+    public FileSystemProfile getProfile() {
+        return profile;
+    }
+
+    public String getReplacement() {
+        return replacement;
+    }
+
+    public String sanitize(String name) {
+        if (profile.indexOfIllegal(name, 0) < 0) return name;
+
+        StringBuilder buffer = new StringBuilder(name);
+        apply(buffer, 0, new StringBuilder(name.length()));
+        return buffer.toString();
+    }
+
+    /**
+     * Rewrites {@code buffer[start, length)} in one pass. A single character replacement is written in place, otherwise
+     * the rest of the buffer after the first illegal character is copied to the scratch buffer and written back.
+     */
+    void apply(StringBuilder buffer, int start, StringBuilder scratch) {
+        int first = profile.indexOfIllegal(buffer, start);
+        if (first < 0) return;
+
+        if (replacement.length() == 1) {
+            char c = replacement.charAt(0);
+            for (int i = first, length = buffer.length(); i < length; i++) {
+                if (!profile.isLegal(buffer.charAt(i))) buffer.setCharAt(i, c);
+            }
+            return;
+        }
+
+        scratch.setLength(0);
+        scratch.append(buffer, first, buffer.length());
+        buffer.setLength(first);
+        for (int i = 0, length = scratch.length(); i < length; i++) {
+            char c = scratch.charAt(i);
+            if (profile.isLegal(c)) {
+                buffer.append(c);
+            } else {
+                buffer.append(replacement);
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof FilenameSanitizer)) return false;
+        FilenameSanitizer other = (FilenameSanitizer) o;
+        return profile == other.profile && replacement.equals(other.replacement);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * profile.hashCode() + replacement.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return profile + " -> '" + replacement + "'";
+    }
+}
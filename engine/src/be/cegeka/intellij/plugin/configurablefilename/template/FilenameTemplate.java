@@ -0,0 +1,272 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.cegeka.intellij.plugin.configurablefilename.template;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+public final class FilenameTemplate {
+
+    private final String source;
+    private final List<Segment> segments;
+    private final Segment[] segmentArray;
+    private final boolean usesSequence;
+    private final boolean usesName;
+    private final long timestampResolution;
+    // Bit ordinal is set for every profile the template can only render legal names for
+    private final int safeProfiles;
+    private final List<TemplateProblem> problems;
+    private final Set<ExternalVariable> externalVariables;
+    private volatile TemplateParser parser;
+    // The parser for the sanitizer that was asked for last, one project uses a single sanitizer
+    private volatile TemplateParser sanitizedParser;
+
+    private FilenameTemplate(String source, List<Segment> segments, List<TemplateProblem> problems) {
+        this.source = source;
+        this.segments = Collections.unmodifiableList(segments);
+        this.segmentArray = segments.toArray(new Segment[segments.size()]);
+        this.problems = problems.isEmpty() ? Collections.<TemplateProblem>emptyList() : Collections.unmodifiableList(problems);
+
+        Set<ExternalVariable> external = new LinkedHashSet<ExternalVariable>();
+        boolean sequence = false;
+        boolean name = false;
+        long resolution = 0;
+        for (Segment segment : segments) {
+            Segment variable = FilteredSegment.unwrap(segment);
+            if (variable instanceof ExternalSegment) {
+                external.add(((ExternalSegment) variable).getVariable());
+            }
+            sequence |= variable instanceof SequenceSegment;
+            name |= variable instanceof NameSegment;
+            if (variable instanceof NowSegment) {
+                long formatter = ((NowSegment) variable).getFormatter().getResolution();
+                resolution = resolution == 0 ? formatter : Math.min(resolution, formatter);
+            }
+        }
+        this.timestampResolution = resolution;
+        this.safeProfiles = safeProfiles(segments);
+        this.usesSequence = sequence;
+        this.usesName = name;
+        this.externalVariables = external.isEmpty() ? Collections.<ExternalVariable>emptySet() : Collections.unmodifiableSet(external);
+    }
+
+    private static int safeProfiles(List<Segment> segments) {
+        int result = 0;
+        for (FileSystemProfile profile : FileSystemProfile.values()) {
+            boolean safe = true;
+            for (Segment segment : segments) {
+                if (!segment.isSafeFor(profile)) {
+                    safe = false;
+                    break;
+                }
+            }
+            if (safe) result |= 1 << profile.ordinal();
+        }
+        return result;
+    }
+
+    public static FilenameTemplate compile(String template) {
+        return compile(template, Collections.<String>emptySet());
+    }
+
+    /**
+     * Compiles a template in which the given variables, next to the built-in ones, are not reported as unknown.
+     */
+    public static FilenameTemplate compile(String template, Collection<String> knownVariables) {
+        String source = template == null ? "" : template;
+        TemplateCompiler compiler = new TemplateCompiler(source, knownVariables).compile();
+        return new FilenameTemplate(source, compiler.getSegments(), compiler.getProblems());
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public List<TemplateProblem> getProblems() {
+        return problems;
+    }
+
+    public Set<ExternalVariable> getExternalVariables() {
+        return externalVariables;
+    }
+
+    public boolean usesSequence() {
+        return usesSequence;
+    }
+
+    public boolean usesName() {
+        return usesName;
+    }
+
+    /**
+     * Returns the resolution in milliseconds of the finest ${NOW} in the template, or 0 if the template has no ${NOW}.
+     */
+    public long getTimestampResolution() {
+        return timestampResolution;
+    }
+
+    /**
+     * Whether every name this template renders is allowed on the file system, decided when the template is compiled.
+     * Rendering with a sanitizer for such a profile does not look at the rendered name.
+     */
+    public boolean isSafeFor(FileSystemProfile profile) {
+        return (safeProfiles & (1 << profile.ordinal())) != 0;
+    }
+
+    /**
+     * Whether {@link #parse} recovers ${NAME} from every name the template renders. A name that is rendered through
+     * filters, as in ${NAME|lower}, cannot be recovered. When the name is also rendered without filters, the filtered
+     * text may contain part of it, ${NAME}${NAME|upper} renders "abAB", so the name is not recovered reliably either.
+     */
+    public boolean recoversName() {
+        boolean plain = false;
+        for (Segment segment : segmentArray) {
+            if (segment instanceof NameSegment) {
+                plain = true;
+            } else if (FilteredSegment.unwrap(segment) instanceof NameSegment) {
+                return false;
+            }
+        }
+        return plain;
+    }
+
+    /**
+     * Returns the value of the first ${SEQ} variable in a filename rendered by this template, or -1 if the filename does
+     * not match the template.
+     */
+    public long parseSequence(String filename) {
+        return parseSequence(filename, null);
+    }
+
+    /**
+     * Returns the value of the first ${SEQ} variable in a filename rendered by this template with the sanitizer, or -1 if
+     * the filename does not match the template.
+     */
+    public long parseSequence(String filename, FilenameSanitizer sanitizer) {
+        return usesSequence ? getParser(sanitizer).parseSequence(filename) : -1;
+    }
+
+    /**
+     * Recovers the values a filename was rendered with, or returns null if the filename does not match this template.
+     * ${USER} and provided variables match any text.
+     */
+    public ParsedFilename parse(String filename) {
+        return parse(filename, null);
+    }
+
+    /**
+     * Recovers the values a filename was rendered with by this template and the sanitizer, or returns null if the
+     * filename does not match this template. The recovered ${NAME} is the sanitized one.
+     */
+    public ParsedFilename parse(String filename, FilenameSanitizer sanitizer) {
+        return getParser(sanitizer).parse(filename);
+    }
+
+    TemplateParser getParser(FilenameSanitizer sanitizer) {
+        if (sanitizer == null || isSafeFor(sanitizer.getProfile())) {
+            TemplateParser result = parser;
+            if (result == null) {
+                result = TemplateParser.create(segments, null);
+                parser = result;
+            }
+            return result;
+        }
+
+        TemplateParser result = sanitizedParser;
+        if (result == null || !sanitizer.equals(result.getSanitizer())) {
+            result = TemplateParser.create(segments, sanitizer);
+            sanitizedParser = result;
+        }
+        return result;
+    }
+
+    List<Segment> getSegments() {
+        return segments;
+    }
+
+    public String render(RenderContext context) {
+        return render(context, null);
+    }
+
+    public String render(RenderContext context, FilenameSanitizer sanitizer) {
+        return render(context.getName(), context.getTimestamp(), context.getSequence(), context.getResolver(), sanitizer);
+    }
+
+    public String render(String name, long timestamp, long sequence) {
+        return render(name, timestamp, sequence, VariableResolver.NONE);
+    }
+
+    public String render(String name, long timestamp, long sequence, VariableResolver resolver) {
+        return render(name, timestamp, sequence, resolver, null);
+    }
+
+    /**
+     * Renders a filename and replaces the characters the sanitizer's file system does not allow, a null sanitizer leaves
+     * the name as rendered.
+     */
+    public String render(String name, long timestamp, long sequence, VariableResolver resolver, FilenameSanitizer sanitizer) {
+        return renderState(name, timestamp, sequence, resolver, sanitizer).finish();
+    }
+
+    /**
+     * Appends the filename to the target instead of returning it, with built-in variables only this allocates nothing.
+     */
+    public void renderTo(StringBuilder target, String name, long timestamp, long sequence, VariableResolver resolver) {
+        renderTo(target, name, timestamp, sequence, resolver, null);
+    }
+
+    public void renderTo(StringBuilder target, String name, long timestamp, long sequence, VariableResolver resolver,
+                         FilenameSanitizer sanitizer) {
+        renderState(name, timestamp, sequence, resolver, sanitizer).finishTo(target);
+    }
+
+    private RenderState renderState(String name, long timestamp, long sequence, VariableResolver resolver, FilenameSanitizer sanitizer) {
+        RenderState state = RenderState.current().reset(name, timestamp, sequence, resolver);
+        for (Segment segment : segmentArray) {
+            segment.appendTo(state);
+        }
+        if (sanitizer != null && !isSafeFor(sanitizer.getProfile())) {
+            sanitizer.apply(state.buffer, 0, state.scratch);
+        }
+        return state;
+    }
+
+    public BoundTemplate bind(RenderContext context) {
+        return bind(context, null);
+    }
+
+    public BoundTemplate bind(RenderContext context, FilenameSanitizer sanitizer) {
+        return BoundTemplate.bind(segments, context, sanitizer);
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+}
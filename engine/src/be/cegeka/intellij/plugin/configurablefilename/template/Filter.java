@@ -0,0 +1,239 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+package be.cegeka.intellij.plugin.configurablefilename.template;
+
+/**
+ * A step after a variable, as in ${NAME|lower|slug}. Each step rewrites the value the previous steps left at the end of
+ * the buffer. Filters are created once when the template is compiled, with their argument already parsed.
+ */
+abstract class Filter {
+
+    static final char SEPARATOR = '|';
+    private static final char ARGUMENT_SEPARATOR = ':';
+
+    /**
+     * Rewrites {@code buffer[start, length)}. The scratch buffer can be used freely.
+     */
+    abstract void apply(StringBuilder buffer, int start, StringBuilder scratch);
+
+    /**
+     * Whether the filtered value is allowed in a filename on the file system, given whether the value before filtering
+     * is. Filters that only rearrange or drop characters keep the input as safe as it was.
+     */
+    boolean isSafeFor(FileSystemProfile profile, boolean safeInput) {
+        return safeInput;
+    }
+
+    /**
+     * Returns the filter for an expression such as {@code lower} or {@code default:none}, or null if there is no such
+     * filter.
+     */
+    static Filter create(String expression) {
+        int separator = expression.indexOf(ARGUMENT_SEPARATOR);
+        String name = (separator < 0 ? expression : expression.substring(0, separator)).trim();
+        String argument = separator < 0 ? null : expression.substring(separator + 1);
+
+        if (argument == null) {
+            if ("lower".equals(name)) return CaseFilter.LOWER;
+            if ("upper".equals(name)) return CaseFilter.UPPER;
+            if ("trim".equals(name)) return TrimFilter.INSTANCE;
+            if ("camel".equals(name)) return WordFilter.CAMEL;
+            if ("pascal".equals(name)) return WordFilter.PASCAL;
+            if ("snake".equals(name)) return WordFilter.SNAKE;
+            if ("kebab".equals(name)) return WordFilter.KEBAB;
+            if ("slug".equals(name)) return WordFilter.SLUG;
+            return null;
+        }
+        if ("default".equals(name)) return new TextFilter(TextFilter.DEFAULT, argument);
+        if ("prefix".equals(name)) return new TextFilter(TextFilter.PREFIX, argument);
+        if ("suffix".equals(name)) return new TextFilter(TextFilter.SUFFIX, argument);
+        if ("max".equals(name)) {
+            try {
+                int length = Integer.parseInt(argument.trim());
+                return length < 0 ? null : new MaxFilter(length);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static final class CaseFilter extends Filter {
+
+        static final CaseFilter LOWER = new CaseFilter(false);
+        static final CaseFilter UPPER = new CaseFilter(true);
+
+        private final boolean upper;
+
+        private CaseFilter(boolean upper) {
+            this.upper = upper;
+        }
+
+        @Override
+        void apply(StringBuilder buffer, int start, StringBuilder scratch) {
+            for (int i = start; i < buffer.length(); i++) {
+                char c = buffer.charAt(i);
+                buffer.setCharAt(i, upper ? Character.toUpperCase(c) : Character.toLowerCase(c));
+            }
+        }
+    }
+
+    private static final class TrimFilter extends Filter {
+
+        static final TrimFilter INSTANCE = new TrimFilter();
+
+        @Override
+        void apply(StringBuilder buffer, int start, StringBuilder scratch) {
+            int end = buffer.length();
+            while (end > start && Character.isWhitespace(buffer.charAt(end - 1))) end--;
+            buffer.setLength(end);
+            int first = start;
+            while (first < end && Character.isWhitespace(buffer.charAt(first))) first++;
+            buffer.delete(start, first);
+        }
+    }
+
+    /**
+     * Conditional text: {@code default} replaces an empty value, {@code prefix} and {@code suffix} only surround a value
+     * that is not empty.
+     */
+    private static final class TextFilter extends Filter {
+
+        static final int DEFAULT = 0;
+        static final int PREFIX = 1;
+        static final int SUFFIX = 2;
+
+        private final int kind;
+        private final String text;
+
+        TextFilter(int kind, String text) {
+            this.kind = kind;
+            this.text = text;
+        }
+
+        @Override
+        void apply(StringBuilder buffer, int start, StringBuilder scratch) {
+            boolean empty = buffer.length() == start;
+            if (kind == DEFAULT) {
+                if (empty) buffer.append(text);
+            } else if (!empty) {
+                if (kind == PREFIX) {
+                    buffer.insert(start, text);
+                } else {
+                    buffer.append(text);
+                }
+            }
+        }
+
+        @Override
+        boolean isSafeFor(FileSystemProfile profile, boolean safeInput) {
+            return safeInput && profile.isLegal(text);
+        }
+    }
+
+    private static final class MaxFilter extends Filter {
+
+        private final int length;
+
+        MaxFilter(int length) {
+            this.length = length;
+        }
+
+        @Override
+        void apply(StringBuilder buffer, int start, StringBuilder scratch) {
+            if (buffer.length() - start > length) {
+                buffer.setLength(start + length);
+            }
+        }
+    }
+
+    /**
+     * Splits the value into words of letters and digits and joins them again in another style. The value is copied to
+     * the scratch buffer once and written back word by word.
+     */
+    private static final class WordFilter extends Filter {
+
+        static final WordFilter CAMEL = new WordFilter(true, false, true, (char) 0);
+        static final WordFilter PASCAL = new WordFilter(true, true, true, (char) 0);
+        static final WordFilter SNAKE = new WordFilter(true, false, false, '_');
+        static final WordFilter KEBAB = new WordFilter(true, false, false, '-');
+        static final WordFilter SLUG = new WordFilter(false, false, false, '-');
+
+        private final boolean splitCase;
+        private final boolean capitalizeFirst;
+        private final boolean capitalizeOthers;
+        private final char separator;
+
+        private WordFilter(boolean splitCase, boolean capitalizeFirst, boolean capitalizeOthers, char separator) {
+            this.splitCase = splitCase;
+            this.capitalizeFirst = capitalizeFirst;
+            this.capitalizeOthers = capitalizeOthers;
+            this.separator = separator;
+        }
+
+        @Override
+        void apply(StringBuilder buffer, int start, StringBuilder scratch) {
+            scratch.setLength(0);
+            scratch.append(buffer, start, buffer.length());
+            buffer.setLength(start);
+
+            int length = scratch.length();
+            int words = 0;
+            int i = 0;
+            while (i < length) {
+                while (i < length && !Character.isLetterOrDigit(scratch.charAt(i))) i++;
+                if (i == length) break;
+
+                int wordStart = i++;
+                while (i < length && Character.isLetterOrDigit(scratch.charAt(i)) && !(splitCase && isWordStart(scratch, i))) i++;
+
+                if (words > 0 && separator != 0) buffer.append(separator);
+                boolean capitalize = words == 0 ? capitalizeFirst : capitalizeOthers;
+                char first = scratch.charAt(wordStart);
+                buffer.append(capitalize ? Character.toUpperCase(first) : Character.toLowerCase(first));
+                for (int j = wordStart + 1; j < i; j++) {
+                    buffer.append(Character.toLowerCase(scratch.charAt(j)));
+                }
+                words++;
+            }
+        }
+
+        // Only letters, digits and the separator are left
+        @Override
+        boolean isSafeFor(FileSystemProfile profile, boolean safeInput) {
+            return true;
+        }
+
+        // fileName -> file|Name, XMLParser -> XML|Parser
+        private static boolean isWordStart(CharSequence value, int index) {
+            char c = value.charAt(index);
+            if (!Character.isUpperCase(c)) return false;
+
+            char previous = value.charAt(index - 1);
+            if (Character.isLowerCase(previous) || Character.isDigit(previous)) return true;
+            return Character.isUpperCase(previous) && index + 1 < value.length() && Character.isLowerCase(value.charAt(index + 1));
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+package be.cegeka.intellij.plugin.configurablefilename.template;
+
+/**
+ * A variable followed by filters. The variable is written to the buffer as usual and the filters rewrite it there, so a
+ * chain of filters needs no intermediate strings.
+ */
+final class FilteredSegment extends Segment {
+
+    private final Segment source;
+    private final Filter[] filters;
+
+    FilteredSegment(Segment source, Filter[] filters) {
+        this.source = source;
+        this.filters = filters;
+    }
+
+    Segment getSource() {
+        return source;
+    }
+
+    Filter[] getFilters() {
+        return filters;
+    }
+
+    static Segment unwrap(Segment segment) {
+        return segment instanceof FilteredSegment ? ((FilteredSegment) segment).source : segment;
+    }
+
+    @Override
+    void appendTo(RenderState state) {
+        int start = state.buffer.length();
+        source.appendTo(state);
+        apply(filters, state.buffer, start, state.scratch);
+    }
+
+    @Override
+    boolean isSafeFor(FileSystemProfile profile) {
+        boolean safe = source.isSafeFor(profile);
+        for (Filter filter : filters) {
+            safe = filter.isSafeFor(profile, safe);
+        }
+        return safe;
+    }
+
+    static void apply(Filter[] filters, StringBuilder buffer, int start, StringBuilder scratch) {
+        for (Filter filter : filters) {
+            filter.apply(buffer, start, scratch);
+        }
+    }
+}
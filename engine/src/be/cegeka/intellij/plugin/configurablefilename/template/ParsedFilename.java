@@ -0,0 +1,68 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+package be.cegeka.intellij.plugin.configurablefilename.template;
+
+/**
+ * The values recovered from a filename that was rendered by a template.
+ */
+public final class ParsedFilename {
+
+    private final String name;
+    private final long timestamp;
+    private final boolean hasTimestamp;
+    private final long sequence;
+
+    ParsedFilename(String name, long timestamp, boolean hasTimestamp, long sequence) {
+        this.name = name;
+        this.timestamp = timestamp;
+        this.hasTimestamp = hasTimestamp;
+        this.sequence = sequence;
+    }
+
+    /**
+     * The ${NAME} value, or null if the template does not use it.
+     */
+    public String getName() {
+        return name;
+    }
+
+    public boolean hasTimestamp() {
+        return hasTimestamp;
+    }
+
+    /**
+     * The first ${NOW} value that could be parsed. Fields missing from its date format are those of 1 January 1970.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * The first ${SEQ} value, or -1 if the template does not use it.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+package be.cegeka.intellij.plugin.configurablefilename.template;
+
+/**
+ * Thread confined scratch space for rendering, so rendering a template with built-in variables only allocates the
+ * resulting filename.
+ */
+final class RenderState {
+
+    private static final int MAX_RETAINED_CAPACITY = 1024;
+
+    private static final ThreadLocal<RenderState> CURRENT = new ThreadLocal<RenderState>() {
+        @Override
+        protected RenderState initialValue() {
+            return new RenderState();
+        }
+    };
+
+    final StringBuilder buffer = new StringBuilder(128);
+
+    // Used by filters that rewrite a value, see FilteredSegment
+    final StringBuilder scratch = new StringBuilder(64);
+
+    // The default time zone is read once per thread, TimeZone.getDefault() returns a new copy on every call
+    private final DateFields dateFields = new DateFields();
+
+    private String name;
+    private long timestamp;
+    private long sequence;
+    private VariableResolver resolver = VariableResolver.NONE;
+
+    static RenderState current() {
+        return CURRENT.get();
+    }
+
+    RenderState reset(String name, long timestamp, long sequence, VariableResolver resolver) {
+        this.name = name;
+        this.timestamp = timestamp;
+        this.sequence = sequence;
+        this.resolver = resolver;
+        buffer.setLength(0);
+        return this;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    long getTimestamp() {
+        return timestamp;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    VariableResolver getResolver() {
+        return resolver;
+    }
+
+    DateFields getDateFields() {
+        return dateFields.setTimestamp(timestamp);
+    }
+
+    String finish() {
+        String result = buffer.toString();
+        clear();
+        return result;
+    }
+
+    void finishTo(StringBuilder target) {
+        target.append(buffer);
+        clear();
+    }
+
+    private void clear() {
+        if (buffer.capacity() > MAX_RETAINED_CAPACITY) {
+            buffer.setLength(0);
+            buffer.trimToSize();
+        }
+        if (scratch.capacity() > MAX_RETAINED_CAPACITY) {
+            scratch.setLength(0);
+            scratch.trimToSize();
+        }
+        name = null;
+        resolver = VariableResolver.NONE;
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.cegeka.intellij.plugin.configurablefilename.template;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+final class TemplateCompiler {
+
+    private static final String VARIABLE_START = "${";
+    private static final char VARIABLE_END = '}';
+    private static final char ARGUMENT_SEPARATOR = ';';
+    private static final Pattern EXTERNAL_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_.-]*");
+
+    private final String source;
+    private final Collection<String> knownVariables;
+    private final List<Segment> segments = new ArrayList<Segment>();
+    private final List<TemplateProblem> problems = new ArrayList<TemplateProblem>();
+
+    TemplateCompiler(String source, Collection<String> knownVariables) {
+        this.source = source;
+        this.knownVariables = knownVariables;
+    }
+
+    List<Segment> getSegments() {
+        return segments;
+    }
+
+    List<TemplateProblem> getProblems() {
+        return problems;
+    }
+
+    TemplateCompiler compile() {
+        int position = 0;
+        while (position < source.length()) {
+            int start = source.indexOf(VARIABLE_START, position);
+            int end = start < 0 ? -1 : source.indexOf(VARIABLE_END, start + VARIABLE_START.length());
+            if (end < 0) {
+                if (start >= 0) {
+                    problems.add(new TemplateProblem(TemplateProblem.Kind.UNCLOSED_VARIABLE, source.substring(start), start));
+                }
+                addLiteral(source.substring(position));
+                break;
+            }
+            if (end == start + VARIABLE_START.length()) {
+                // "${}" is not a variable, keep it as text
+                problems.add(new TemplateProblem(TemplateProblem.Kind.EMPTY_VARIABLE, VARIABLE_START + VARIABLE_END, start));
+                addLiteral(source.substring(position, end + 1));
+                position = end + 1;
+                continue;
+            }
+
+            if (start > position) {
+                addLiteral(source.substring(position, start));
+            }
+            Segment variable = createExpression(source.substring(start + VARIABLE_START.length(), end), start);
+            if (variable != null) {
+                segments.add(variable);
+            }
+            position = end + 1;
+        }
+        return this;
+    }
+
+    private void addLiteral(String text) {
+        if (text.isEmpty()) return;
+
+        int last = segments.size() - 1;
+        if (last >= 0 && segments.get(last) instanceof LiteralSegment) {
+            segments.set(last, new LiteralSegment(((LiteralSegment) segments.get(last)).getText() + text));
+        } else {
+            segments.add(new LiteralSegment(text));
+        }
+    }
+
+    private Segment createExpression(String expression, int offset) {
+        int pipe = expression.indexOf(Filter.SEPARATOR);
+        if (pipe < 0) return createVariable(expression, offset);
+
+        LinkedList<Filter> filters = new LinkedList<Filter>();
+        String variable = expression;
+        if (expression.lastIndexOf(ARGUMENT_SEPARATOR, pipe) < 0) {
+            // Without an argument everything after the variable name is a filter
+            variable = expression.substring(0, pipe);
+            for (String step : expression.substring(pipe + 1).split("\\|", -1)) {
+                Filter filter = Filter.create(step);
+                if (filter == null) {
+                    problems.add(new TemplateProblem(TemplateProblem.Kind.UNKNOWN_FILTER, step, offset));
+                } else {
+                    filters.add(filter);
+                }
+            }
+        } else {
+            // Arguments such as the ${TICKET} pattern may contain '|' themselves, only known filters are taken off the end
+            int last;
+            while ((last = variable.lastIndexOf(Filter.SEPARATOR)) >= 0) {
+                Filter filter = Filter.create(variable.substring(last + 1));
+                if (filter == null) break;
+                filters.addFirst(filter);
+                variable = variable.substring(0, last);
+            }
+        }
+
+        Segment segment = createVariable(variable, offset);
+        if (segment == null || filters.isEmpty()) return segment;
+        if (segment instanceof SequenceSegment) {
+            // Filters only add text around the digits or cut them off, and the number could not be read back from a
+            // name. The filters are left out so the numbering keeps working.
+            problems.add(new TemplateProblem(TemplateProblem.Kind.FILTERED_SEQUENCE, expression, offset));
+            return segment;
+        }
+        return new FilteredSegment(segment, filters.toArray(new Filter[filters.size()]));
+    }
+
+    private Segment createVariable(String variable, int offset) {
+        if ("NOW".equals(variable)) {
+            return createNow(DateFormatter.DEFAULT_PATTERN, offset);
+        } else if ("USER".equals(variable)) {
+            return UserSegment.INSTANCE;
+        } else if ("NAME".equals(variable)) {
+            return NameSegment.INSTANCE;
+        } else if (variable.startsWith("NOW;")) {
+            return createNow(variable.substring(4), offset);
+        } else if ("SEQ".equals(variable)) {
+            return new SequenceSegment(1);
+        } else if (variable.startsWith("SEQ;")) {
+            return createSequence(variable.substring(4), offset);
+        }
+        return createExternal(variable, offset);
+    }
+
+    private Segment createExternal(String variable, int offset) {
+        int separator = variable.indexOf(ARGUMENT_SEPARATOR);
+        String name = separator < 0 ? variable : variable.substring(0, separator);
+        if (!EXTERNAL_NAME.matcher(name).matches()) {
+            problems.add(new TemplateProblem(TemplateProblem.Kind.UNKNOWN_VARIABLE, variable, offset));
+            return null;
+        }
+        if (!knownVariables.contains(name)) {
+            // Still rendered through the resolver, a provider may be registered later
+            problems.add(new TemplateProblem(TemplateProblem.Kind.UNKNOWN_VARIABLE, variable, offset));
+        }
+        return new ExternalSegment(new ExternalVariable(name, separator < 0 ? null : variable.substring(separator + 1)));
+    }
+
+    private Segment createSequence(String width, int offset) {
+        try {
+            int value = Integer.parseInt(width.trim());
+            if (value >= 0 && value <= SequenceSegment.MAX_WIDTH) {
+                return new SequenceSegment(value);
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        problems.add(new TemplateProblem(TemplateProblem.Kind.INVALID_SEQUENCE_WIDTH, width, offset));
+        return new InvalidSegment("Illegal sequence width '" + width + "'");
+    }
+
+    private Segment createNow(String pattern, int offset) {
+        try {
+            return new NowSegment(DateFormatter.forPattern(pattern));
+        } catch (IllegalArgumentException e) {
+            problems.add(new TemplateProblem(TemplateProblem.Kind.INVALID_DATE_FORMAT, e.getMessage(), offset));
+            // Reported when a file is created, as before templates were compiled
+            return new InvalidSegment(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+package be.cegeka.intellij.plugin.configurablefilename.template;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the templates that could have rendered a filename. The leading and trailing text of all templates is kept in
+ * two tries, one pass over the start and the end of a filename leaves only the templates whose text is there. Only
+ * those are matched completely.
+ */
+public final class TemplateMatcher<T> {
+
+    private final List<T> keys;
+    private final TemplateParser[] parsers;
+    private final Node prefixes;
+    private final Node suffixes;
+    // The candidates with the text at the start and at the end of the filename being matched, reused for every filename
+    private final ThreadLocal<long[][]> candidateSets;
+
+    private TemplateMatcher(List<T> keys, TemplateParser[] parsers, Node prefixes, Node suffixes) {
+        this.keys = keys;
+        this.parsers = parsers;
+        this.prefixes = prefixes;
+        this.suffixes = suffixes;
+        final int words = (parsers.length + 63) >>> 6;
+        this.candidateSets = new ThreadLocal<long[][]>() {
+            @Override
+            protected long[][] initialValue() {
+                return new long[2][words];
+            }
+        };
+    }
+
+    public static <T> TemplateMatcher<T> create(Map<T, FilenameTemplate> templates) {
+        return create(templates, null);
+    }
+
+    /**
+     * The iteration order of the map is the order in which templates are tried.
+     *
+     * @param sanitizer the sanitizer the filenames were rendered with, or null if they were rendered without one
+     */
+    public static <T> TemplateMatcher<T> create(Map<T, FilenameTemplate> templates, FilenameSanitizer sanitizer) {
+        List<T> keys = new ArrayList<T>(templates.size());
+        TemplateParser[] parsers = new TemplateParser[templates.size()];
+        Node prefixes = new Node();
+        Node suffixes = new Node();
+
+        int index = 0;
+        for (Map.Entry<T, FilenameTemplate> entry : templates.entrySet()) {
+            List<Segment> segments = entry.getValue().getSegments();
+            keys.add(entry.getKey());
+            parsers[index] = entry.getValue().getParser(sanitizer);
+            String prefix = getLiteral(segments, 0);
+            String suffix = getLiteral(segments, segments.size() - 1);
+            if (parsers[index].getSanitizer() != null) {
+                prefix = sanitizer.sanitize(prefix);
+                suffix = sanitizer.sanitize(suffix);
+            }
+            prefixes.add(prefix, false, index, parsers.length);
+            suffixes.add(suffix, true, index, parsers.length);
+            index++;
+        }
+        return new TemplateMatcher<T>(Collections.unmodifiableList(keys), parsers, prefixes, suffixes);
+    }
+
+    private static String getLiteral(List<Segment> segments, int index) {
+        if (index < 0 || index >= segments.size() || !(segments.get(index) instanceof LiteralSegment)) return "";
+        return ((LiteralSegment) segments.get(index)).getText();
+    }
+
+    public List<T> getKeys() {
+        return keys;
+    }
+
+    /**
+     * Returns the first template that matches the filename, or null if none does.
+     */
+    public T classify(String filename) {
+        Match<T> match = match(filename);
+        return match == null ? null : match.getKey();
+    }
+
+    /**
+     * Returns the first template that matches the filename with the values recovered from it, or null if none does.
+     */
+    public Match<T> match(String filename) {
+        long[] candidates = findCandidates(filename);
+        for (int i = nextCandidate(candidates, 0); i >= 0; i = nextCandidate(candidates, i + 1)) {
+            ParsedFilename parsed = parsers[i].parse(filename);
+            if (parsed != null) {
+                return new Match<T>(keys.get(i), parsed);
+            }
+        }
+        return null;
+    }
+
+    public List<T> matchAll(String filename) {
+        List<T> result = null;
+        long[] candidates = findCandidates(filename);
+        for (int i = nextCandidate(candidates, 0); i >= 0; i = nextCandidate(candidates, i + 1)) {
+            if (parsers[i].parse(filename) != null) {
+                if (result == null) result = new ArrayList<T>(2);
+                result.add(keys.get(i));
+            }
+        }
+        return result == null ? Collections.<T>emptyList() : result;
+    }
+
+    /**
+     * Returns the templates whose leading and trailing text the filename has. The result is only valid until the next
+     * call on the same thread.
+     */
+    private long[] findCandidates(String filename) {
+        long[][] sets = candidateSets.get();
+        long[] candidates = prefixes.collect(filename, false, sets[0]);
+        long[] withSuffix = suffixes.collect(filename, true, sets[1]);
+        for (int i = 0; i < candidates.length; i++) {
+            candidates[i] &= withSuffix[i];
+        }
+        return candidates;
+    }
+
+    private static int nextCandidate(long[] candidates, int from) {
+        int word = from >>> 6;
+        if (word >= candidates.length) return -1;
+
+        long bits = candidates[word] & (-1L << from);
+        while (bits == 0) {
+            if (++word == candidates.length) return -1;
+            bits = candidates[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    public static final class Match<T> {
+        private final T key;
+        private final ParsedFilename parsed;
+
+        private Match(T key, ParsedFilename parsed) {
+            this.key = key;
+            this.parsed = parsed;
+        }
+
+        public T getKey() {
+            return key;
+        }
+
+        public ParsedFilename getParsed() {
+            return parsed;
+        }
+    }
+
+    private static final class Node {
+        private char[] chars = new char[0];
+        private Node[] children = new Node[0];
+        // The templates whose text ends at this node
+        private long[] templates;
+
+        void add(String text, boolean reversed, int template, int templateCount) {
+            Node node = this;
+            for (int i = 0; i < text.length(); i++) {
+                node = node.getOrAddChild(text.charAt(reversed ? text.length() - 1 - i : i));
+            }
+            if (node.templates == null) node.templates = new long[(templateCount + 63) >>> 6];
+            node.templates[template >>> 6] |= 1L << template;
+        }
+
+        private Node getOrAddChild(char c) {
+            int index = Arrays.binarySearch(chars, c);
+            if (index >= 0) return children[index];
+
+            int insert = -index - 1;
+            char[] newChars = new char[chars.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(chars, 0, newChars, 0, insert);
+            System.arraycopy(children, 0, newChildren, 0, insert);
+            newChars[insert] = c;
+            newChildren[insert] = new Node();
+            System.arraycopy(chars, insert, newChars, insert + 1, chars.length - insert);
+            System.arraycopy(children, insert, newChildren, insert + 1, children.length - insert);
+            chars = newChars;
+            children = newChildren;
+            return newChildren[insert];
+        }
+
+        private Node getChild(char c) {
+            int index = Arrays.binarySearch(chars, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        /**
+         * Sets the templates whose text is a prefix of the filename, or a suffix when reversed, in the result.
+         */
+        long[] collect(String filename, boolean reversed, long[] result) {
+            int words = result.length;
+            Arrays.fill(result, 0);
+            Node node = this;
+            int length = filename.length();
+            for (int i = 0; node != null; i++) {
+                if (node.templates != null) {
+                    for (int word = 0; word < words; word++) {
+                        result[word] |= node.templates[word];
+                    }
+                }
+                if (i == length) break;
+                node = node.getChild(filename.charAt(reversed ? length - 1 - i : i));
+            }
+            return result;
+        }
+    }
+}
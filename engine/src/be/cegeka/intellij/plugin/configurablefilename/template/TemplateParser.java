@@ -0,0 +1,192 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+package be.cegeka.intellij.plugin.configurablefilename.template;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Recovers the values a template rendered a filename with. A parser for a sanitizer matches the names the sanitizer
+ * replaced illegal characters in, literal text and dates are matched as the sanitizer rewrote them.
+ */
+final class TemplateParser {
+
+    private final FilenameSanitizer sanitizer;
+    private final Pattern pattern;
+    private final int nameGroup;
+    private final int sequenceGroup;
+    private final int[] dateGroups;
+    private final DateFormatter[] dateFormatters;
+    // The groups of the filtered names and their filters, checked against the recovered name
+    private final int[] filteredNameGroups;
+    private final Filter[][] nameFilters;
+
+    private TemplateParser(FilenameSanitizer sanitizer, Pattern pattern, int nameGroup, int sequenceGroup, List<DateFormatter> dateFormatters, List<Integer> dateGroups,
+                           List<Integer> filteredNameGroups, List<Filter[]> nameFilters) {
+        this.sanitizer = sanitizer;
+        this.pattern = pattern;
+        this.nameGroup = nameGroup;
+        this.sequenceGroup = sequenceGroup;
+        this.dateGroups = toArray(dateGroups);
+        this.dateFormatters = dateFormatters.toArray(new DateFormatter[dateFormatters.size()]);
+        this.filteredNameGroups = toArray(filteredNameGroups);
+        this.nameFilters = nameFilters.toArray(new Filter[nameFilters.size()][]);
+    }
+
+    /**
+     * @param sanitizer the sanitizer the names were rendered with, or null for names rendered without one
+     */
+    static TemplateParser create(List<Segment> segments, FilenameSanitizer sanitizer) {
+        StringBuilder regex = new StringBuilder();
+        int groups = 0;
+        int nameGroup = 0;
+        int sequenceGroup = 0;
+        List<DateFormatter> dateFormatters = new ArrayList<DateFormatter>();
+        List<Integer> dateGroups = new ArrayList<Integer>();
+        List<Integer> filteredNameGroups = new ArrayList<Integer>();
+        List<Filter[]> nameFilters = new ArrayList<Filter[]>();
+
+        for (Segment segment : segments) {
+            if (segment instanceof LiteralSegment) {
+                String text = ((LiteralSegment) segment).getText();
+                regex.append(Pattern.quote(sanitizer == null ? text : sanitizer.sanitize(text)));
+            } else if (segment instanceof NameSegment) {
+                if (nameGroup == 0) {
+                    regex.append("(.+?)");
+                    nameGroup = ++groups;
+                } else {
+                    regex.append("(?:\\").append(nameGroup).append(')');
+                }
+            } else if (segment instanceof SequenceSegment) {
+                if (sequenceGroup == 0) {
+                    regex.append("(\\d+)");
+                    sequenceGroup = ++groups;
+                } else {
+                    regex.append("\\d+");
+                }
+            } else if (segment instanceof NowSegment) {
+                DateFormatter formatter = ((NowSegment) segment).getFormatter();
+                if (sanitizer != null) formatter = formatter.sanitize(sanitizer);
+                if (formatter == null) {
+                    // The sanitizer replaced characters of a month or zone name, the date cannot be recovered
+                    regex.append(".+?");
+                    continue;
+                }
+                regex.append('(');
+                formatter.appendRegex(regex);
+                regex.append(')');
+                dateFormatters.add(formatter);
+                dateGroups.add(++groups);
+            } else if (FilteredSegment.unwrap(segment) instanceof NameSegment) {
+                regex.append("(.*?)");
+                filteredNameGroups.add(++groups);
+                nameFilters.add(((FilteredSegment) segment).getFilters());
+            } else if (segment instanceof InvalidSegment) {
+                // The template never rendered a name
+                return new TemplateParser(sanitizer, null, 0, 0, dateFormatters, dateGroups, filteredNameGroups, nameFilters);
+            } else {
+                // The user and the provided values may have been different when the file was created
+                regex.append(".*?");
+            }
+        }
+
+        return new TemplateParser(sanitizer, Pattern.compile(regex.toString()), nameGroup, sequenceGroup, dateFormatters, dateGroups,
+                filteredNameGroups, nameFilters);
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        int[] result = new int[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(i);
+        }
+        return result;
+    }
+
+    FilenameSanitizer getSanitizer() {
+        return sanitizer;
+    }
+
+    /**
+     * Returns the value of the first ${SEQ} without parsing the dates, or -1 if the filename does not match.
+     */
+    long parseSequence(String filename) {
+        if (pattern == null || sequenceGroup == 0) return -1;
+
+        Matcher matcher = pattern.matcher(filename);
+        if (!matcher.matches()) return -1;
+        try {
+            return Long.parseLong(matcher.group(sequenceGroup));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    ParsedFilename parse(String filename) {
+        if (pattern == null) return null;
+
+        Matcher matcher = pattern.matcher(filename);
+        if (!matcher.matches()) return null;
+
+        long sequence = -1;
+        if (sequenceGroup > 0) {
+            try {
+                sequence = Long.parseLong(matcher.group(sequenceGroup));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        long timestamp = 0;
+        for (int i = dateGroups.length - 1; i >= 0; i--) {
+            Date date = dateFormatters[i].parseDate(matcher.group(dateGroups[i]));
+            if (date == null) return null;
+            timestamp = date.getTime();
+        }
+        String name = nameGroup > 0 ? matcher.group(nameGroup) : null;
+        if (name != null && !rendersFilteredNames(matcher, name)) {
+            // The filtered text took part of the name, see FilenameTemplate.recoversName()
+            name = null;
+        }
+        return new ParsedFilename(name, timestamp, dateGroups.length > 0, sequence);
+    }
+
+    private boolean rendersFilteredNames(Matcher matcher, String name) {
+        if (filteredNameGroups.length == 0) return true;
+
+        StringBuilder buffer = new StringBuilder(name.length() + 16);
+        StringBuilder scratch = new StringBuilder(name.length());
+        for (int i = 0; i < filteredNameGroups.length; i++) {
+            buffer.setLength(0);
+            buffer.append(name);
+            FilteredSegment.apply(nameFilters[i], buffer, 0, scratch);
+            if (sanitizer != null) sanitizer.apply(buffer, 0, scratch);
+            if (!buffer.toString().equals(matcher.group(filteredNameGroups[i]))) return false;
+        }
+        return true;
+    }
+}
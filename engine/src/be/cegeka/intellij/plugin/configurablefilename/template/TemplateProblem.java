@@ -23,44 +23,44 @@
  *  OTHER DEALINGS IN THE SOFTWARE.
  */
 
-package be.cegeka.intellij.plugin.configurablefilename.settings;
+package be.cegeka.intellij.plugin.configurablefilename.template;
 
-public class ConfigurableFilename {
+public final class TemplateProblem {
 
-    private String type;
-    private String defaultExtension;
-    private String template;
-
-    public ConfigurableFilename() {
-    }
-
-    public ConfigurableFilename(String type, String defaultExtension, String template) {
-        this.type = type;
-        this.defaultExtension = defaultExtension;
-        this.template = template;
+    public enum Kind {
+        UNCLOSED_VARIABLE,
+        EMPTY_VARIABLE,
+        UNKNOWN_VARIABLE,
+        INVALID_DATE_FORMAT,
+        INVALID_SEQUENCE_WIDTH,
+        UNKNOWN_FILTER,
+        FILTERED_SEQUENCE
     }
 
-    public String getType() {
-        return type;
-    }
+    private final Kind kind;
+    private final String detail;
+    private final int offset;
 
-    public void setType(String type) {
-        this.type = type;
+    TemplateProblem(Kind kind, String detail, int offset) {
+        this.kind = kind;
+        this.detail = detail;
+        this.offset = offset;
     }
 
-    public String getDefaultExtension() {
-        return defaultExtension;
+    public Kind getKind() {
+        return kind;
     }
 
-    public void setDefaultExtension(String defaultExtension) {
-        this.defaultExtension = defaultExtension;
+    public String getDetail() {
+        return detail;
     }
 
-    public String getTemplate() {
-        return template;
+    public int getOffset() {
+        return offset;
     }
 
-    public void setTemplate(String template) {
-        this.template = template;
+    @Override
+    public String toString() {
+        return kind + " at " + offset + ": " + detail;
     }
 }
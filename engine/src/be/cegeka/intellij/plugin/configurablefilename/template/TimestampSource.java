@@ -0,0 +1,99 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+package be.cegeka.intellij.plugin.configurablefilename.template;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out strictly increasing timestamps, so files created in the same millisecond or by a script still get distinct
+ * and correctly ordered ${NOW} values. One instance is shared by all projects, threads only contend on a single
+ * compare-and-set.
+ */
+public final class TimestampSource {
+
+    /**
+     * Timestamps are moved ahead by at most this resolution per file, coarser formats such as a date without a time
+     * would run too far into the future and rely on the unique suffix instead.
+     */
+    static final long MAX_UNIQUE_RESOLUTION = 1000L;
+
+    private static final TimestampSource DEFAULT = new TimestampSource(Clock.SYSTEM);
+
+    private final Clock clock;
+    private final AtomicLong last = new AtomicLong(Long.MIN_VALUE);
+
+    public TimestampSource(Clock clock) {
+        this.clock = clock;
+    }
+
+    public static TimestampSource getDefault() {
+        return DEFAULT;
+    }
+
+    public Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * Returns a timestamp after every timestamp returned before, in a later millisecond.
+     */
+    public long next() {
+        return next(1);
+    }
+
+    /**
+     * Returns a timestamp after every timestamp returned before that the template formats differently from all of
+     * them, as long as its finest ${NOW} field is seconds or milliseconds.
+     */
+    public long next(FilenameTemplate template) {
+        return next(template.getTimestampResolution());
+    }
+
+    /**
+     * Returns a timestamp after every timestamp returned before that falls in a later interval of {@code resolution}
+     * milliseconds, e.g. a later second for a resolution of 1000.
+     */
+    public long next(long resolution) {
+        long unit = resolution < 1 || resolution > MAX_UNIQUE_RESOLUTION ? 1 : resolution;
+        while (true) {
+            long now = clock.currentTimeMillis();
+            long previous = last.get();
+            long candidate = Math.max(now, previous + 1);
+            if (unit > 1 && previous != Long.MIN_VALUE && candidate / unit == previous / unit) {
+                candidate = (previous / unit + 1) * unit;
+            }
+            if (last.compareAndSet(previous, candidate)) {
+                return candidate;
+            }
+        }
+    }
+
+    /**
+     * Returns the timestamp {@link #next()} would return now without taking it, for previews.
+     */
+    public long peek() {
+        return Math.max(clock.currentTimeMillis(), last.get() + 1);
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.cegeka.intellij.plugin.configurablefilename.template;
+
+public enum UniqueSuffix {
+
+    NONE,
+    COUNTER,
+    TIMESTAMP;
+
+    /**
+     * Returns the name to try after {@code attempt} collisions. The suffix goes in front of the extension.
+     */
+    public String candidate(String name, int attempt, long timestamp) {
+        if (attempt == 0 || this == NONE) return name;
+
+        int dot = name.lastIndexOf('.');
+        if (dot <= 0) dot = name.length();
+
+        StringBuilder buffer = new StringBuilder(name.length() + 8);
+        buffer.append(name, 0, dot);
+        if (this == TIMESTAMP) {
+            buffer.append('_');
+            DateFormatter.appendPadded(buffer, timestamp % 1000, 3);
+            if (attempt > 1) {
+                buffer.append('-').append(attempt);
+            }
+        } else {
+            buffer.append('-').append(attempt + 1);
+        }
+        buffer.append(name, dot, name.length());
+        return buffer.toString();
+    }
+}
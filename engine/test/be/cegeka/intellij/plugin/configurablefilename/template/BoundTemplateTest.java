@@ -0,0 +1,84 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.cegeka.intellij.plugin.configurablefilename.template;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class BoundTemplateTest {
+
+    private static final long TIMESTAMP = 1456789012345L;
+
+    private static final VariableResolver TICKET = new VariableResolver() {
+        @Override
+        public String resolve(String name, String argument) {
+            return "TICKET".equals(name) ? "ABC:12" : null;
+        }
+    };
+
+    private static void assertRendersLikeTheTemplate(String source, String... names) {
+        FilenameTemplate template = FilenameTemplate.compile(source, Collections.singleton("TICKET"));
+        BoundTemplate bound = template.bind(new RenderContext(null, TIMESTAMP, 3, TICKET));
+        for (String name : names) {
+            assertEquals(template.render(name, TIMESTAMP, 3, TICKET), bound.render(name));
+        }
+    }
+
+    @Test
+    public void rendersLikeTheTemplate() {
+        assertRendersLikeTheTemplate("${NOW;yyyyMMdd}_${SEQ}_${NAME}.txt", "a", "My File", "");
+        assertRendersLikeTheTemplate("${TICKET}-${NAME}", "fix");
+        assertRendersLikeTheTemplate("constant", "ignored");
+    }
+
+    @Test
+    public void rendersEveryOccurrenceOfTheName() {
+        assertRendersLikeTheTemplate("${NAME}/${NAME|upper}_${NAME|snake}", "My File");
+        assertEquals("My File-MY FILE", FilenameTemplate.compile("${NAME}-${NAME|upper}")
+                .bind(new RenderContext(null, 0)).render("My File"));
+    }
+
+    @Test
+    public void sanitizesLikeTheTemplate() {
+        FilenameSanitizer sanitizer = new FilenameSanitizer(FileSystemProfile.WINDOWS, "--");
+        FilenameTemplate template = FilenameTemplate.compile("${TICKET}_${NOW;HH:mm}_${NAME}_${NAME|slug}", Collections.singleton("TICKET"));
+        BoundTemplate bound = template.bind(new RenderContext(null, TIMESTAMP, 1, TICKET), sanitizer);
+        for (String name : new String[]{"plain", "a:b", "what?"}) {
+            assertEquals(template.render(name, TIMESTAMP, 1, TICKET, sanitizer), bound.render(name));
+        }
+        assertEquals("ABC--12_", bound.render("").substring(0, 8));
+    }
+
+    @Test
+    public void keepsTheNameOfSafeSegmentsAsIs() {
+        FilenameSanitizer sanitizer = new FilenameSanitizer(FileSystemProfile.WINDOWS, "_");
+        BoundTemplate bound = FilenameTemplate.compile("${SEQ}-${NAME|kebab}").bind(new RenderContext(null, 0, 4), sanitizer);
+        assertEquals("4-a-b", bound.render("A:B"));
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.cegeka.intellij.plugin.configurablefilename.template;
+
+import org.junit.Test;
+
+import java.text.DecimalFormatSymbols;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Compares the hand-written formatters with {@link SimpleDateFormat}, which ${NOW} used before.
+ */
+public class DateFormatterTest {
+
+    // Every letter the field formatter supports, in every width it treats differently
+    private static final String[] PATTERNS = {
+            "y", "yy", "yyy", "yyyy", "yyyyy",
+            "M", "MM", "MMM", "MMMM",
+            "d", "dd", "D", "DD", "DDD",
+            "H", "HH", "k", "kk", "K", "KK", "h", "hh",
+            "m", "mm", "s", "ss", "S", "SS", "SSS",
+            "E", "EEE", "EEEE", "a",
+            "yyyy-MM-dd'T'HH:mm:ss.SSS", "yyyyMMddHHmmss", "'week''s' EEEE, d MMMM yyyy h:mm a", "''yy''",
+            DateFormatter.DEFAULT_PATTERN
+    };
+
+    private static final Pattern TEXT = Pattern.compile("MMM|E|a");
+
+    private static long[] timestamps() {
+        long[] result = new long[1000];
+        Random random = new Random(42);
+        for (int i = 0; i < result.length; i++) {
+            // From 1901 to 2100, spread over every month, hour and millisecond
+            result[i] = -2177452800000L + (long) (random.nextDouble() * 6311347200000L);
+        }
+        result[0] = 0;
+        result[1] = -1;
+        result[2] = 951782400000L; // 2000-02-29
+        result[3] = 4107542399999L; // 2100-02-28 23:59:59.999, not a leap year
+        return result;
+    }
+
+    private static boolean isGregorianAsciiLocale() {
+        return DecimalFormatSymbols.getInstance(Locale.getDefault()).getZeroDigit() == '0'
+                && "1970".equals(new SimpleDateFormat("yyyy").format(new Date(12 * 60 * 60 * 1000L)));
+    }
+
+    @Test
+    public void formatsLikeSimpleDateFormat() {
+        long[] timestamps = timestamps();
+        for (String pattern : PATTERNS) {
+            DateFormatter formatter = DateFormatter.forPattern(pattern);
+            SimpleDateFormat expected = new SimpleDateFormat(pattern);
+            for (long timestamp : timestamps) {
+                assertEquals(pattern + " at " + timestamp, expected.format(new Date(timestamp)), formatter.format(timestamp));
+            }
+        }
+    }
+
+    @Test
+    public void formatsSupportedLettersWithoutSimpleDateFormat() {
+        assumeTrue(isGregorianAsciiLocale());
+        // Some locales use other month names standing alone than in a date, those text patterns fall back
+        boolean english = "en".equals(Locale.getDefault().getLanguage());
+        for (String pattern : PATTERNS) {
+            if (!english && TEXT.matcher(pattern).find()) continue;
+            assertFalse(pattern, DateFormatter.forPattern(pattern) instanceof FallbackDateFormatter);
+        }
+        assertTrue(DateFormatter.forPattern(DateFormatter.DEFAULT_PATTERN) instanceof DefaultDateFormatter);
+    }
+
+    @Test
+    public void fallsBackForOtherLetters() {
+        DateFormatter formatter = DateFormatter.forPattern("yyyy-'W'ww-u z");
+        assertTrue(formatter instanceof FallbackDateFormatter);
+        assertEquals(new SimpleDateFormat("yyyy-'W'ww-u z").format(new Date(1456789012345L)), formatter.format(1456789012345L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvalidPatterns() {
+        DateFormatter.forPattern("yyyy-q");
+    }
+
+    @Test
+    public void sharesFormattersOfTheSamePattern() {
+        assertSame(DateFormatter.forPattern("yyyyMMdd"), DateFormatter.forPattern("yyyyMMdd"));
+    }
+
+    @Test
+    public void matchesWhatItFormats() {
+        long[] timestamps = timestamps();
+        for (String pattern : PATTERNS) {
+            DateFormatter formatter = DateFormatter.forPattern(pattern);
+            StringBuilder regex = new StringBuilder();
+            formatter.appendRegex(regex);
+            Pattern compiled = Pattern.compile(regex.toString());
+            for (long timestamp : timestamps) {
+                String formatted = formatter.format(timestamp);
+                assertTrue(pattern + ": " + formatted, compiled.matcher(formatted).matches());
+            }
+        }
+    }
+
+    @Test
+    public void parsesWhatItFormats() {
+        DateFormatter formatter = DateFormatter.forPattern("yyyyMMddHHmmssSSS");
+        for (long timestamp : timestamps()) {
+            if (timestamp < 0) continue;
+            // The hour repeated when daylight saving time ends reads back as either of both
+            String formatted = formatter.format(timestamp);
+            assertEquals(formatted, formatter.format(formatter.parseDate(formatted).getTime()));
+        }
+        DateFormatter seconds = DateFormatter.forPattern(DateFormatter.DEFAULT_PATTERN);
+        assertEquals(1456789012000L, seconds.parseDate(seconds.format(1456789012345L)).getTime());
+    }
+
+    @Test
+    public void doesNotParseInvalidDates() {
+        DateFormatter formatter = DateFormatter.forPattern("yyyyMMdd");
+        assertNull(formatter.parseDate("20170231"));
+        assertNull(formatter.parseDate("2017010"));
+        assertNull(formatter.parseDate("20170101x"));
+    }
+
+    @Test
+    public void knowsTheFinestField() {
+        assertEquals(24 * 60 * 60 * 1000L, DateFormatter.forPattern("yyyy-MM-dd").getResolution());
+        assertEquals(60 * 60 * 1000L, DateFormatter.forPattern("yyyyMMddHH").getResolution());
+        assertEquals(60 * 1000L, DateFormatter.forPattern("HH:mm").getResolution());
+        assertEquals(1000L, DateFormatter.forPattern(DateFormatter.DEFAULT_PATTERN).getResolution());
+        assertEquals(1L, DateFormatter.forPattern("ss.SSS").getResolution());
+        assertEquals(24 * 60 * 60 * 1000L, DateFormatter.forPattern("yyyy'ms'").getResolution());
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.cegeka.intellij.plugin.configurablefilename.template;
+
+import org.junit.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class FilenameSanitizerTest {
+
+    private static final long TIMESTAMP = 1500000000000L;
+
+    @Test
+    public void replacesWhatTheFileSystemDoesNotAllow() {
+        assertEquals("a:b_c", new FilenameSanitizer(FileSystemProfile.UNIX, "_").sanitize("a:b/c"));
+        assertEquals("a_b_c", new FilenameSanitizer(FileSystemProfile.MAC, "_").sanitize("a:b/c"));
+        assertEquals("a_b_c_d_", new FilenameSanitizer(FileSystemProfile.WINDOWS, "_").sanitize("a<b|c?d\t"));
+    }
+
+    @Test
+    public void leavesAllowedNamesAlone() {
+        assertEquals("Ünïcode näme.txt", new FilenameSanitizer(FileSystemProfile.PORTABLE, "_").sanitize("Ünïcode näme.txt"));
+    }
+
+    @Test
+    public void replacesWithLongerText() {
+        assertEquals("12--30--00", new FilenameSanitizer(FileSystemProfile.WINDOWS, "--").sanitize("12:30:00"));
+        assertEquals("a----b", new FilenameSanitizer(FileSystemProfile.WINDOWS, "--").sanitize("a::b"));
+    }
+
+    @Test
+    public void leavesCharactersOutWithAnEmptyReplacement() {
+        assertEquals("123000", new FilenameSanitizer(FileSystemProfile.WINDOWS, "").sanitize("12:30:00"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnIllegalReplacement() {
+        new FilenameSanitizer(FileSystemProfile.WINDOWS, ":");
+    }
+
+    @Test
+    public void portableAllowsWhatEveryFileSystemAllows() {
+        for (char c = 0; c < 256; c++) {
+            boolean everywhere = FileSystemProfile.UNIX.isLegal(c) && FileSystemProfile.MAC.isLegal(c)
+                    && FileSystemProfile.WINDOWS.isLegal(c);
+            assertEquals(String.valueOf((int) c), everywhere, FileSystemProfile.PORTABLE.isLegal(c));
+        }
+    }
+
+    @Test
+    public void fallsBackToTheHostForUnknownNames() {
+        assertEquals(FileSystemProfile.MAC, FileSystemProfile.forName("MAC"));
+        assertEquals(FileSystemProfile.forHost(), FileSystemProfile.forName("AMIGA"));
+        assertEquals(FileSystemProfile.forHost(), FileSystemProfile.forName(null));
+    }
+
+    @Test
+    public void recognizesTemplatesThatOnlyRenderAllowedCharacters() {
+        assertTrue(FilenameTemplate.compile("V${NOW;yyyyMMddHHmmss}__${NAME|snake}").isSafeFor(FileSystemProfile.PORTABLE));
+        assertTrue(FilenameTemplate.compile("${SEQ}-${NAME|slug}.sql").isSafeFor(FileSystemProfile.PORTABLE));
+        assertTrue(FilenameTemplate.compile("${NOW;HH:mm}").isSafeFor(FileSystemProfile.UNIX));
+        assertFalse(FilenameTemplate.compile("${NOW;HH:mm}").isSafeFor(FileSystemProfile.WINDOWS));
+        assertFalse(FilenameTemplate.compile("${NAME}").isSafeFor(FileSystemProfile.UNIX));
+        assertFalse(FilenameTemplate.compile("${NAME|upper}").isSafeFor(FileSystemProfile.UNIX));
+    }
+
+    @Test
+    public void sanitizesRenderedNames() {
+        FilenameSanitizer sanitizer = new FilenameSanitizer(FileSystemProfile.WINDOWS, "-");
+        FilenameTemplate template = FilenameTemplate.compile("${NOW;HH:mm}_${NAME}");
+        String plain = template.render("a/b", 0, 1);
+        assertEquals(plain.replace(':', '-').replace('/', '-'), template.render("a/b", 0, 1, VariableResolver.NONE, sanitizer));
+    }
+
+    @Test
+    public void leavesSafeTemplatesUnchanged() {
+        FilenameSanitizer sanitizer = new FilenameSanitizer(FileSystemProfile.WINDOWS, "-");
+        FilenameTemplate template = FilenameTemplate.compile("${SEQ}-${NAME|slug}");
+        assertEquals("7-my-file", template.render("My:File", 0, 7, VariableResolver.NONE, sanitizer));
+    }
+
+    @Test
+    public void parsesSanitizedNames() {
+        FilenameSanitizer sanitizer = new FilenameSanitizer(FileSystemProfile.WINDOWS, "_");
+        FilenameTemplate template = FilenameTemplate.compile("V${SEQ;3}:${NAME}.sql");
+        String filename = template.render("a", TIMESTAMP, 7, VariableResolver.NONE, sanitizer);
+        assertEquals("V007_a.sql", filename);
+        assertEquals(7, template.parseSequence(filename, sanitizer));
+        assertEquals("a", template.parse(filename, sanitizer).getName());
+        assertEquals(7, template.parse(filename, sanitizer).getSequence());
+        assertEquals(-1, template.parseSequence(filename));
+    }
+
+    @Test
+    public void parsesSanitizedDates() {
+        FilenameSanitizer sanitizer = new FilenameSanitizer(FileSystemProfile.WINDOWS, "_");
+        FilenameTemplate template = FilenameTemplate.compile("${NOW;yyyy-MM-dd HH:mm}_${SEQ}_${NAME}");
+        String filename = template.render("a", TIMESTAMP, 7, VariableResolver.NONE, sanitizer);
+        assertEquals(7, template.parseSequence(filename, sanitizer));
+
+        ParsedFilename parsed = template.parse(filename, sanitizer);
+        assertEquals(7, parsed.getSequence());
+        assertEquals("a", parsed.getName());
+        assertTrue(parsed.hasTimestamp());
+        assertEquals(filename, template.render("a", parsed.getTimestamp(), 7, VariableResolver.NONE, sanitizer));
+    }
+
+    @Test
+    public void parsesNamesSanitizedWithOtherReplacements() {
+        String[] replacements = {"", "--", "_", "'"};
+        String[] sources = {"${NOW;HH:mm}|${SEQ}|${NAME}", "${NOW;HH':'mm}_${SEQ}", "${NOW;'at' h:mm a}#${SEQ}#${NAME|upper}"};
+        for (String replacement : replacements) {
+            FilenameSanitizer sanitizer = new FilenameSanitizer(FileSystemProfile.WINDOWS, replacement);
+            for (String source : sources) {
+                FilenameTemplate template = FilenameTemplate.compile(source);
+                String filename = template.render("b:c", TIMESTAMP, 42, VariableResolver.NONE, sanitizer);
+                ParsedFilename parsed = template.parse(filename, sanitizer);
+                assertNotNull(filename, parsed);
+                assertEquals(filename, 42, parsed.getSequence());
+                assertEquals(filename, filename, template.render(sanitizer.sanitize("b:c"), parsed.getTimestamp(), 42,
+                        VariableResolver.NONE, sanitizer));
+            }
+        }
+    }
+
+    @Test
+    public void classifiesSanitizedNames() {
+        FilenameSanitizer sanitizer = new FilenameSanitizer(FileSystemProfile.WINDOWS, "-");
+        Map<String, FilenameTemplate> templates = new LinkedHashMap<String, FilenameTemplate>();
+        templates.put("migration", FilenameTemplate.compile("V${SEQ}:${NAME}.sql"));
+        templates.put("note", FilenameTemplate.compile("${NOW;HH:mm}|note.txt"));
+        TemplateMatcher<String> matcher = TemplateMatcher.create(templates, sanitizer);
+
+        assertEquals("migration", matcher.classify(templates.get("migration").render("a", TIMESTAMP, 3, VariableResolver.NONE, sanitizer)));
+        assertEquals("note", matcher.classify(templates.get("note").render("a", TIMESTAMP, 3, VariableResolver.NONE, sanitizer)));
+        assertNull(matcher.classify("V3:a.sql"));
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.cegeka.intellij.plugin.configurablefilename.template;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FilterTest {
+
+    private static String render(String template, String name) {
+        return FilenameTemplate.compile(template).render(name, 0, 1);
+    }
+
+    @Test
+    public void changesCase() {
+        assertEquals("my file", render("${NAME|lower}", "My File"));
+        assertEquals("MY FILE", render("${NAME|upper}", "My File"));
+    }
+
+    @Test
+    public void trimsWhitespace() {
+        assertEquals("[my file]", render("[${NAME|trim}]", "  my file \t"));
+    }
+
+    @Test
+    public void joinsWords() {
+        assertEquals("myNewFile", render("${NAME|camel}", "my new-file"));
+        assertEquals("MyNewFile", render("${NAME|pascal}", "my_new file"));
+        assertEquals("my_new_file", render("${NAME|snake}", "MyNewFile"));
+        assertEquals("xml-parser", render("${NAME|kebab}", "XMLParser"));
+        assertEquals("myfile-v2", render("${NAME|slug}", "MyFile v2!"));
+    }
+
+    @Test
+    public void addsTextOnlyAroundValues() {
+        assertEquals("none", render("${NAME|default:none}", ""));
+        assertEquals("file", render("${NAME|default:none}", "file"));
+        assertEquals("-file.", render("${NAME|prefix:-|suffix:.}", "file"));
+        assertEquals("", render("${NAME|prefix:-|suffix:.}", ""));
+    }
+
+    @Test
+    public void cutsOffLongValues() {
+        assertEquals("abc", render("${NAME|max:3}", "abcdef"));
+        assertEquals("ab", render("${NAME|max:3}", "ab"));
+    }
+
+    @Test
+    public void appliesFiltersFromLeftToRight() {
+        assertEquals("my-long", render("${NAME|trim|lower|slug|max:7}", " My Long Name "));
+    }
+
+    @Test
+    public void reportsUnknownFilters() {
+        List<TemplateProblem> problems = FilenameTemplate.compile("${NAME|shout}").getProblems();
+        assertEquals(1, problems.size());
+        assertEquals(TemplateProblem.Kind.UNKNOWN_FILTER, problems.get(0).getKind());
+        assertEquals("shout", problems.get(0).getDetail());
+    }
+
+    @Test
+    public void keepsBarsInArguments() {
+        FilenameTemplate template = FilenameTemplate.compile("${TICKET;[A-Z]+-\\d+|\\d+|lower}");
+        assertEquals(1, template.getExternalVariables().size());
+        assertEquals("[A-Z]+-\\d+|\\d+", template.getExternalVariables().iterator().next().getArgument());
+        assertEquals("abc-1", template.render("x", 0, 1, new VariableResolver() {
+            @Override
+            public String resolve(String name, String argument) {
+                return "ABC-1";
+            }
+        }));
+        for (TemplateProblem problem : template.getProblems()) {
+            assertTrue(problem.toString(), problem.getKind() != TemplateProblem.Kind.UNKNOWN_FILTER);
+        }
+    }
+}
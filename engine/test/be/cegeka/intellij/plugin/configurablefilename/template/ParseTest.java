@@ -0,0 +1,112 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.cegeka.intellij.plugin.configurablefilename.template;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Renders names and reads them back with the same template.
+ */
+public class ParseTest {
+
+    private static final long TIMESTAMP = 1456789012000L;
+
+    @Test
+    public void recoversRenderedValues() {
+        FilenameTemplate template = FilenameTemplate.compile("V${SEQ;3}_${NOW;yyyyMMddHHmmss}__${NAME}");
+        String filename = template.render("add_table.sql", TIMESTAMP, 42);
+
+        ParsedFilename parsed = template.parse(filename);
+        assertNotNull(parsed);
+        assertEquals("add_table.sql", parsed.getName());
+        assertTrue(parsed.hasTimestamp());
+        assertEquals(TIMESTAMP, parsed.getTimestamp());
+        assertEquals(42, parsed.getSequence());
+        assertEquals(42, template.parseSequence(filename));
+    }
+
+    @Test
+    public void rejectsOtherNames() {
+        FilenameTemplate template = FilenameTemplate.compile("V${SEQ}__${NAME}");
+        assertNull(template.parse("R__repeatable.sql"));
+        assertEquals(-1, template.parseSequence("R__repeatable.sql"));
+    }
+
+    @Test
+    public void readsRepeatedNamesOnce() {
+        FilenameTemplate template = FilenameTemplate.compile("${NAME}/${NAME}");
+        assertEquals("ab", template.parse("ab/ab").getName());
+        assertNull(template.parse("ab/cd"));
+    }
+
+    @Test
+    public void doesNotRecoverFilteredNames() {
+        assertFalse(FilenameTemplate.compile("${NAME|lower}").recoversName());
+        assertTrue(FilenameTemplate.compile("${NAME}").recoversName());
+    }
+
+    @Test
+    public void doesNotTrustNamesNextToFilteredNames() {
+        FilenameTemplate template = FilenameTemplate.compile("${NAME}${NAME|upper}");
+        assertFalse(template.recoversName());
+
+        // The lazy name group would take "a" and leave "bAB" to the filtered name
+        ParsedFilename parsed = template.parse(template.render("ab", TIMESTAMP, 1));
+        assertNotNull(parsed);
+        assertNull(parsed.getName());
+    }
+
+    @Test
+    public void checksFilteredNamesAgainstTheRecoveredName() {
+        FilenameTemplate template = FilenameTemplate.compile("${NAME|lower}_${NAME}");
+        assertEquals("Report", template.parse("report_Report").getName());
+        assertNull(template.parse("other_Report").getName());
+    }
+
+    @Test
+    public void leavesFiltersOffSequences() {
+        FilenameTemplate template = FilenameTemplate.compile("V${SEQ;4|max:4}__${NAME}.sql");
+        List<TemplateProblem> problems = template.getProblems();
+        assertEquals(1, problems.size());
+        assertEquals(TemplateProblem.Kind.FILTERED_SEQUENCE, problems.get(0).getKind());
+
+        String filename = template.render("init", TIMESTAMP, 12345);
+        assertEquals("V12345__init.sql", filename);
+        assertEquals(12345, template.parseSequence(filename));
+        assertEquals(12345, template.parse(filename).getSequence());
+    }
+
+    @Test
+    public void readsSequencesWithTextAround() {
+        FilenameTemplate template = FilenameTemplate.compile("${SEQ|prefix:V}_${NAME}");
+        assertEquals(TemplateProblem.Kind.FILTERED_SEQUENCE, template.getProblems().get(0).getKind());
+        assertEquals(7, template.parseSequence(template.render("x", TIMESTAMP, 7)));
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.cegeka.intellij.plugin.configurablefilename.template;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SequenceTest {
+
+    private static void assertInvalidWidth(String template) {
+        List<TemplateProblem> problems = FilenameTemplate.compile(template).getProblems();
+        assertEquals(template, 1, problems.size());
+        assertEquals(TemplateProblem.Kind.INVALID_SEQUENCE_WIDTH, problems.get(0).getKind());
+    }
+
+    @Test
+    public void padsToTheWidth() {
+        assertEquals("V0042__init.sql", FilenameTemplate.compile("V${SEQ;4}__${NAME}").render("init.sql", 0, 42));
+        assertEquals("V12345__init.sql", FilenameTemplate.compile("V${SEQ;4}__${NAME}").render("init.sql", 0, 12345));
+        assertEquals("7-a", FilenameTemplate.compile("${SEQ}-${NAME}").render("a", 0, 7));
+        assertEquals("0000000000000000007", FilenameTemplate.compile("${SEQ;19}").render("a", 0, 7));
+    }
+
+    @Test
+    public void rejectsWidthsBeyondTheDigitsOfALong() {
+        assertInvalidWidth("${SEQ;20}");
+        assertInvalidWidth("${SEQ;999999999}");
+        assertInvalidWidth("${SEQ;99999999999}");
+        assertInvalidWidth("${SEQ;-1}");
+        assertInvalidWidth("${SEQ;four}");
+        assertTrue(FilenameTemplate.compile("${SEQ; 19 }").getProblems().isEmpty());
+    }
+
+    @Test
+    public void readsTheSequenceBack() {
+        FilenameTemplate template = FilenameTemplate.compile("V${SEQ;4}__${NAME}");
+        assertTrue(template.usesSequence());
+        assertEquals(42, template.parseSequence("V0042__init.sql"));
+        assertEquals(12345, template.parseSequence("V12345__init.sql"));
+        assertEquals(-1, template.parseSequence("V__init.sql"));
+        assertEquals(-1, template.parseSequence("V99999999999999999999__overflow.sql"));
+    }
+
+    @Test
+    public void readsTheFirstOfSeveralSequences() {
+        FilenameTemplate template = FilenameTemplate.compile("${SEQ}_${NAME}_${SEQ;3}");
+        assertEquals(8, template.parseSequence(template.render("x", 0, 8)));
+    }
+
+    @Test
+    public void hasNoSequenceWithoutTheVariable() {
+        FilenameTemplate template = FilenameTemplate.compile("${NOW}_${NAME}");
+        assertFalse(template.usesSequence());
+        assertEquals(-1, template.parseSequence("2017-01-01_00-00-00_a"));
+    }
+}
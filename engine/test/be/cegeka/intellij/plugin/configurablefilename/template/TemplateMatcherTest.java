@@ -0,0 +1,117 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.cegeka.intellij.plugin.configurablefilename.template;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class TemplateMatcherTest {
+
+    private static final long TIMESTAMP = 1456789012000L;
+
+    private static TemplateMatcher<String> matcher(String... typesAndTemplates) {
+        Map<String, FilenameTemplate> templates = new LinkedHashMap<String, FilenameTemplate>();
+        for (int i = 0; i < typesAndTemplates.length; i += 2) {
+            templates.put(typesAndTemplates[i], FilenameTemplate.compile(typesAndTemplates[i + 1]));
+        }
+        return TemplateMatcher.create(templates);
+    }
+
+    @Test
+    public void findsTheTemplateOfAFilename() {
+        TemplateMatcher<String> matcher = matcher(
+                "migration", "V${SEQ;3}__${NAME}.sql",
+                "changelog", "${NOW;yyyyMMdd}-${NAME}.md",
+                "note", "note_${NAME}");
+        assertEquals("migration", matcher.classify("V001__init.sql"));
+        assertEquals("changelog", matcher.classify("20160301-release.md"));
+        assertEquals("note", matcher.classify("note_todo.txt"));
+        assertNull(matcher.classify("README.md"));
+        assertNull(matcher.classify("Vxyz__init.sql"));
+    }
+
+    @Test
+    public void recoversTheValues() {
+        TemplateMatcher<String> matcher = matcher("migration", "V${SEQ;3}_${NOW;yyyyMMddHHmmss}__${NAME}");
+        String filename = FilenameTemplate.compile("V${SEQ;3}_${NOW;yyyyMMddHHmmss}__${NAME}").render("init.sql", TIMESTAMP, 12);
+
+        TemplateMatcher.Match<String> match = matcher.match(filename);
+        assertNotNull(match);
+        assertEquals("migration", match.getKey());
+        assertEquals("init.sql", match.getParsed().getName());
+        assertEquals(TIMESTAMP, match.getParsed().getTimestamp());
+        assertEquals(12, match.getParsed().getSequence());
+    }
+
+    @Test
+    public void triesTemplatesThatShareTheirText() {
+        TemplateMatcher<String> matcher = matcher(
+                "dated", "${NOW;yyyyMMdd}_${NAME}.sql",
+                "numbered", "${SEQ;4}_${NAME}.sql",
+                "any", "${USER}_${NAME}.sql");
+        assertEquals("dated", matcher.classify("20160301_a.sql"));
+        assertEquals("numbered", matcher.classify("0042_a.sql"));
+        assertEquals("any", matcher.classify("x_a.sql"));
+        assertNull(matcher.classify("x_a.txt"));
+    }
+
+    @Test
+    public void prefersTheFirstTemplate() {
+        TemplateMatcher<String> matcher = matcher("specific", "V${SEQ}__${NAME}", "generic", "${NAME}");
+        assertEquals("specific", matcher.classify("V1__init.sql"));
+        assertEquals(Arrays.asList("specific", "generic"), matcher.matchAll("V1__init.sql"));
+        assertEquals(Collections.singletonList("generic"), matcher.matchAll("init.sql"));
+    }
+
+    @Test
+    public void keepsPrefixesAndSuffixesApart() {
+        // The filename starts with the suffix of one template and ends with the prefix of the other
+        TemplateMatcher<String> matcher = matcher("a", "ab${NAME}", "b", "${NAME}cd");
+        assertNull(matcher.classify("cdxab"));
+        assertEquals("a", matcher.classify("abcd"));
+        assertEquals(Arrays.asList("a", "b"), matcher.matchAll("abcd"));
+    }
+
+    @Test
+    public void handlesMoreTemplatesThanOneWordOfCandidates() {
+        Map<Integer, FilenameTemplate> templates = new LinkedHashMap<Integer, FilenameTemplate>();
+        for (int i = 0; i < 200; i++) {
+            templates.put(i, FilenameTemplate.compile("T" + i + "-${NAME}" + (i % 2 == 0 ? ".sql" : ".md")));
+        }
+        TemplateMatcher<Integer> matcher = TemplateMatcher.create(templates);
+        for (int i = 0; i < 200; i++) {
+            assertEquals(Integer.valueOf(i), matcher.classify("T" + i + "-name" + (i % 2 == 0 ? ".sql" : ".md")));
+        }
+        assertNull(matcher.classify("T1-name.sql"));
+        assertEquals(200, matcher.getKeys().size());
+    }
+}
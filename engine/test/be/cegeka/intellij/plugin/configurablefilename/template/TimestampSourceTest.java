@@ -0,0 +1,146 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.cegeka.intellij.plugin.configurablefilename.template;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public class TimestampSourceTest {
+
+    private static final class ManualClock implements Clock {
+        private volatile long time;
+
+        ManualClock(long time) {
+            this.time = time;
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return time;
+        }
+    }
+
+    @Test
+    public void followsTheClock() {
+        ManualClock clock = new ManualClock(1000);
+        TimestampSource source = new TimestampSource(clock);
+        assertEquals(1000, source.next());
+        clock.time = 5000;
+        assertEquals(5000, source.next());
+    }
+
+    @Test
+    public void movesAheadWithinTheSameMillisecond() {
+        TimestampSource source = new TimestampSource(new ManualClock(1000));
+        assertEquals(1000, source.next());
+        assertEquals(1001, source.next());
+        assertEquals(1002, source.next());
+    }
+
+    @Test
+    public void neverGoesBackWithTheClock() {
+        ManualClock clock = new ManualClock(1000);
+        TimestampSource source = new TimestampSource(clock);
+        source.next();
+        clock.time = 10;
+        assertEquals(1001, source.next());
+    }
+
+    @Test
+    public void movesToTheNextIntervalOfTheResolution() {
+        TimestampSource source = new TimestampSource(new ManualClock(1500));
+        assertEquals(1500, source.next(1000));
+        assertEquals(2000, source.next(1000));
+        assertEquals(3000, source.next(1000));
+    }
+
+    @Test
+    public void formatsEveryTimestampDifferently() {
+        FilenameTemplate template = FilenameTemplate.compile("${NOW;yyyyMMddHHmmss}_${NAME}");
+        TimestampSource source = new TimestampSource(new ManualClock(1456789012345L));
+        Set<String> names = new HashSet<String>();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(names.add(template.render("a", source.next(template), 1)));
+        }
+    }
+
+    @Test
+    public void usesMillisecondsForCoarseResolutions() {
+        TimestampSource source = new TimestampSource(new ManualClock(1000));
+        assertEquals(1000, source.next(24 * 60 * 60 * 1000L));
+        assertEquals(1001, source.next(24 * 60 * 60 * 1000L));
+        assertEquals(1002, source.next(FilenameTemplate.compile("${NAME}")));
+    }
+
+    @Test
+    public void peeksWithoutTaking() {
+        TimestampSource source = new TimestampSource(new ManualClock(1000));
+        assertEquals(1000, source.peek());
+        assertEquals(1000, source.next());
+        assertEquals(1001, source.peek());
+        assertEquals(1001, source.peek());
+    }
+
+    @Test
+    public void handsOutUniqueTimestampsAcrossThreads() throws InterruptedException {
+        final TimestampSource source = new TimestampSource(new ManualClock(1000));
+        final Set<Long> all = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+        final int threads = 4;
+        final int perThread = 10000;
+        final CountDownLatch done = new CountDownLatch(threads);
+        final boolean[] increasing = new boolean[threads];
+        for (int t = 0; t < threads; t++) {
+            final int index = t;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    long previous = Long.MIN_VALUE;
+                    boolean ordered = true;
+                    for (int i = 0; i < perThread; i++) {
+                        long timestamp = source.next();
+                        ordered &= timestamp > previous;
+                        previous = timestamp;
+                        all.add(timestamp);
+                    }
+                    increasing[index] = ordered;
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+        assertEquals(threads * perThread, all.size());
+        for (boolean ordered : increasing) {
+            assertTrue(ordered);
+        }
+    }
+}
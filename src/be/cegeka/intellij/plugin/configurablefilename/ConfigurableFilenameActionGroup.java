@@ -0,0 +1,80 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.cegeka.intellij.plugin.configurablefilename;
+
+import be.cegeka.intellij.plugin.configurablefilename.settings.PluginSettings;
+import be.cegeka.intellij.plugin.configurablefilename.template.ExternalVariable;
+import be.cegeka.intellij.plugin.configurablefilename.variables.VariableCache;
+import com.intellij.openapi.actionSystem.ActionGroup;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+public class ConfigurableFilenameActionGroup extends ActionGroup implements DumbAware {
+
+    @NotNull
+    @Override
+    public AnAction[] getChildren(@Nullable AnActionEvent e) {
+        if (e == null) return EMPTY_ARRAY;
+
+        Project project = e.getProject();
+        if (project == null || project.isDisposed()) return EMPTY_ARRAY;
+
+        VirtualFile file = e.getData(CommonDataKeys.VIRTUAL_FILE);
+        VirtualFile directory = file == null || file.isDirectory() ? file : file.getParent();
+        // Only the types whose scope contains the directory, found with one lookup and cached per directory
+        AnAction[] actions = PluginSettings.getInstance(project).getActions(directory);
+        prewarmVariables(project, actions, directory);
+        return actions;
+    }
+
+    private static void prewarmVariables(Project project, AnAction[] actions, @Nullable VirtualFile directory) {
+        if (directory == null) return;
+
+        List<ExternalVariable> variables = null;
+        for (AnAction action : actions) {
+            if (action instanceof CreateFileWithConfigurableNameAction) {
+                Set<ExternalVariable> external = ((CreateFileWithConfigurableNameAction) action).getExternalVariables();
+                if (!external.isEmpty()) {
+                    if (variables == null) variables = new ArrayList<ExternalVariable>();
+                    variables.addAll(external);
+                }
+            }
+        }
+        if (variables != null) {
+            VariableCache.getInstance(project).prewarm(variables, directory);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.cegeka.intellij.plugin.configurablefilename;
+
+import be.cegeka.intellij.plugin.configurablefilename.messages.MessageBundle;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.openapi.ui.InputValidatorEx;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.ui.DocumentAdapter;
+import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.util.Alarm;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import java.awt.*;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class CreateFileDialog extends DialogWrapper {
+
+    interface Preview {
+        @NotNull
+        List<String> render(@NotNull String input);
+    }
+
+    private static final int PREVIEW_DELAY = 150;
+
+    private final JTextArea namesField = new JTextArea(5, 40);
+    private final JBLabel previewLabel = new JBLabel();
+
+    private final InputValidatorEx validator;
+    private final Preview preview;
+    private final Alarm previewAlarm;
+    private final AtomicInteger previewRequest = new AtomicInteger();
+
+    CreateFileDialog(Project project, String title, InputValidatorEx validator, Preview preview) {
+        super(project, true);
+        this.validator = validator;
+        this.preview = preview;
+        this.previewAlarm = new Alarm(Alarm.ThreadToUse.POOLED_THREAD, getDisposable());
+
+        namesField.getDocument().addDocumentListener(new DocumentAdapter() {
+            @Override
+            protected void textChanged(DocumentEvent e) {
+                updateErrorText();
+                schedulePreview();
+            }
+        });
+
+        setTitle(title);
+        init();
+        updateErrorText();
+        schedulePreview();
+    }
+
+    private void updateErrorText() {
+        String text = namesField.getText();
+        boolean valid = validator.checkInput(text);
+        setOKActionEnabled(valid);
+        setErrorText(valid ? null : validator.getErrorText(text));
+    }
+
+    private void schedulePreview() {
+        final String text = namesField.getText();
+        final int request = previewRequest.incrementAndGet();
+
+        previewAlarm.cancelAllRequests();
+        previewAlarm.addRequest(new Runnable() {
+            @Override
+            public void run() {
+                if (request != previewRequest.get()) return;
+
+                final String html = toHtml(preview.render(text));
+                ApplicationManager.getApplication().invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (request == previewRequest.get()) {
+                            previewLabel.setText(html);
+                        }
+                    }
+                }, ModalityState.stateForComponent(previewLabel));
+            }
+        }, PREVIEW_DELAY);
+    }
+
+    private static String toHtml(List<String> lines) {
+        StringBuilder html = new StringBuilder("<html>");
+        for (String line : lines) {
+            html.append(StringUtil.escapeXml(line)).append("<br>");
+        }
+        return html.append("</html>").toString();
+    }
+
+    @Override
+    protected void doOKAction() {
+        String text = namesField.getText();
+        if (validator.checkInput(text) && validator.canClose(text)) {
+            super.doOKAction();
+        }
+    }
+
+    @Nullable
+    @Override
+    public JComponent getPreferredFocusedComponent() {
+        return namesField;
+    }
+
+    @Nullable
+    @Override
+    protected JComponent createCenterPanel() {
+        JPanel panel = new JPanel(new BorderLayout(0, 5));
+        panel.add(new JLabel(MessageBundle.message("prompt.enter.new.file.names")), BorderLayout.NORTH);
+        panel.add(new JBScrollPane(namesField), BorderLayout.CENTER);
+
+        JPanel previewPanel = new JPanel(new BorderLayout(0, 2));
+        previewPanel.add(new JLabel(MessageBundle.message("dialog.preview.label")), BorderLayout.NORTH);
+        previewPanel.add(previewLabel, BorderLayout.CENTER);
+        panel.add(previewPanel, BorderLayout.SOUTH);
+
+        return panel;
+    }
+}
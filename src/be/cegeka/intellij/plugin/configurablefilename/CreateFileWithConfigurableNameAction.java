@@ -25,38 +25,115 @@
 
 package be.cegeka.intellij.plugin.configurablefilename;
 
+import be.cegeka.intellij.plugin.configurablefilename.directory.ChildNames;
+import be.cegeka.intellij.plugin.configurablefilename.directory.SequenceCounters;
 import be.cegeka.intellij.plugin.configurablefilename.messages.MessageBundle;
-import com.intellij.ide.IdeBundle;
+import be.cegeka.intellij.plugin.configurablefilename.settings.PluginSettings;
+import be.cegeka.intellij.plugin.configurablefilename.statistics.Operation;
+import be.cegeka.intellij.plugin.configurablefilename.statistics.Statistics;
+import be.cegeka.intellij.plugin.configurablefilename.template.BoundTemplate;
+import be.cegeka.intellij.plugin.configurablefilename.template.ExternalVariable;
+import be.cegeka.intellij.plugin.configurablefilename.template.FilenameSanitizer;
+import be.cegeka.intellij.plugin.configurablefilename.template.FilenameTemplate;
+import be.cegeka.intellij.plugin.configurablefilename.template.RenderContext;
+import be.cegeka.intellij.plugin.configurablefilename.template.TimestampSource;
+import be.cegeka.intellij.plugin.configurablefilename.template.UniqueSuffix;
+import be.cegeka.intellij.plugin.configurablefilename.template.VariableResolver;
+import be.cegeka.intellij.plugin.configurablefilename.variables.VariableCache;
 import com.intellij.ide.actions.CreateFileAction;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.fileTypes.StdFileTypes;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.util.ProgressIndicatorUtils;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.util.Ref;
+import com.intellij.openapi.util.SystemInfo;
+import com.intellij.openapi.util.ThrowableComputable;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.PsiDirectory;
 import com.intellij.psi.PsiElement;
+import com.intellij.util.IncorrectOperationException;
+import com.intellij.util.TimeoutUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @SuppressWarnings("ComponentNotRegistered")
 public class CreateFileWithConfigurableNameAction extends CreateFileAction {
 
-    private static final Pattern VARIABLE_PATTERN = Pattern.compile("\\$\\{([^}]+)\\}");
-
     private final String type;
     private final String defaultExtension;
-    private final String template;
+    private final FilenameTemplate template;
+    private final List<FilenameTemplate> additionalTemplates;
+    private final Set<ExternalVariable> externalVariables;
+    private final long timestampResolution;
+    private final UniqueSuffix uniqueSuffix;
 
     public CreateFileWithConfigurableNameAction(String type, String defaultExtension, String template) {
+        this(type, defaultExtension, template, UniqueSuffix.NONE);
+    }
+
+    public CreateFileWithConfigurableNameAction(String type, String defaultExtension, String template, UniqueSuffix uniqueSuffix) {
+        this(type, defaultExtension, FilenameTemplate.compile(template), uniqueSuffix);
+    }
+
+    public CreateFileWithConfigurableNameAction(String type, String defaultExtension, @NotNull FilenameTemplate template, UniqueSuffix uniqueSuffix) {
+        this(type, defaultExtension, template, Collections.<FilenameTemplate>emptyList(), uniqueSuffix);
+    }
+
+    public CreateFileWithConfigurableNameAction(String type, String defaultExtension, @NotNull FilenameTemplate template,
+                                                @NotNull List<FilenameTemplate> additionalTemplates, UniqueSuffix uniqueSuffix) {
         super(type + " file", MessageBundle.message("action.create.new.file.description", type), StdFileTypes.PLAIN_TEXT.getIcon());
         this.type = type;
         this.defaultExtension = defaultExtension;
         this.template = template;
+        this.additionalTemplates = Collections.unmodifiableList(new ArrayList<FilenameTemplate>(additionalTemplates));
+        this.uniqueSuffix = uniqueSuffix == null ? UniqueSuffix.NONE : uniqueSuffix;
+
+        Set<ExternalVariable> variables = new LinkedHashSet<ExternalVariable>(template.getExternalVariables());
+        long resolution = template.getTimestampResolution();
+        for (FilenameTemplate additional : additionalTemplates) {
+            variables.addAll(additional.getExternalVariables());
+            long additionalResolution = additional.getTimestampResolution();
+            if (additionalResolution > 0 && (resolution == 0 || additionalResolution < resolution)) {
+                resolution = additionalResolution;
+            }
+        }
+        this.externalVariables = Collections.unmodifiableSet(variables);
+        this.timestampResolution = resolution;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    @NotNull
+    public FilenameTemplate getTemplate() {
+        return template;
+    }
+
+    @NotNull
+    public List<FilenameTemplate> getAdditionalTemplates() {
+        return additionalTemplates;
+    }
+
+    /**
+     * The provided variables used by the main and the additional templates.
+     */
+    @NotNull
+    public Set<ExternalVariable> getExternalVariables() {
+        return externalVariables;
     }
 
     @Override
@@ -67,7 +144,7 @@ public class CreateFileWithConfigurableNameAction extends CreateFileAction {
     @NotNull
     @Override
     protected PsiElement[] invokeDialog(Project project, PsiDirectory directory) {
-        MyInputValidator validator = new MyValidator(project, directory);
+        BatchValidator validator = new BatchValidator(project, directory);
         if (ApplicationManager.getApplication().isUnitTestMode()) {
             try {
                 return validator.create("test");
@@ -75,8 +152,7 @@ public class CreateFileWithConfigurableNameAction extends CreateFileAction {
                 throw new RuntimeException(e);
             }
         } else {
-            Messages.showInputDialog(project, IdeBundle.message("prompt.enter.new.file.name"),
-                    MessageBundle.message("title.new.file", type), null, null, validator);
+            new CreateFileDialog(project, MessageBundle.message("title.new.file", type), validator, new FilenamePreview(directory)).show();
             return validator.getCreatedElements();
         }
     }
@@ -90,8 +166,139 @@ public class CreateFileWithConfigurableNameAction extends CreateFileAction {
     @NotNull
     @Override
     protected PsiElement[] create(String newName, PsiDirectory directory) throws Exception {
-        CreateFileAction.MkDirs mkdirs = new CreateFileAction.MkDirs(newName, directory);
-        return new PsiElement[]{mkdirs.directory.createFile(generateFileName(getFileName(mkdirs.newName)))};
+        return createFiles(plan(splitNames(newName), directory));
+    }
+
+    /**
+     * Resolves the target directories and renders the names without changing anything on disk. Only needs a read
+     * action. Names are reserved, so the plan must be executed or released. Sequence numbers are only taken when the
+     * plan is executed.
+     */
+    private CreationPlan plan(List<String> names, PsiDirectory directory) {
+        long start = Statistics.start();
+        int filesPerName = 1 + additionalTemplates.size();
+        CreationPlan plan = new CreationPlan(directory, names, filesPerName);
+        Map<String, CreationPlan.Target> targets = new HashMap<String, CreationPlan.Target>();
+        String[] enteredNames = new String[names.size()];
+        for (int i = 0; i < enteredNames.length; i++) {
+            String path = SystemInfo.isWindows ? names.get(i).replace('\\', '/') : names.get(i);
+            int separator = path.lastIndexOf('/');
+            String subdirectory = separator < 0 ? "" : path.substring(0, separator);
+            CreationPlan.Target target = targets.get(subdirectory);
+            if (target == null) {
+                target = findTarget(directory, subdirectory);
+                targets.put(subdirectory, target);
+            }
+            for (int j = 0; j < filesPerName; j++) {
+                plan.set(i * filesPerName + j, target, null, false);
+            }
+            enteredNames[i] = path.substring(separator + 1);
+        }
+        Statistics.record(type, Operation.RESOLVE_DIRECTORIES, start);
+
+        start = Statistics.start();
+        // Every name gets its own timestamp, so files created together still sort in the order they were entered. The
+        // files of one name share the timestamp, the sequence number and the variable values.
+        TimestampSource timestampSource = TimestampSource.getDefault();
+        long[] timestamps = new long[enteredNames.length];
+        String[] fileNames = new String[plan.size()];
+        SequenceCounters sequences = template.usesSequence() ? SequenceCounters.getInstance(directory.getProject()) : null;
+        VariableResolver resolver = externalVariables.isEmpty() ? VariableResolver.NONE
+                : VariableCache.getInstance(directory.getProject()).createResolver(directory.getVirtualFile());
+        // Illegal characters are replaced here instead of failing in the write action
+        FilenameSanitizer sanitizer = PluginSettings.getInstance(directory.getProject()).getSanitizer();
+        for (int i = 0; i < enteredNames.length; i++) {
+            CreationPlan.Target target = plan.getTarget(i * filesPerName);
+            long sequence = 0;
+            if (sequences != null) {
+                sequence = target.nextSequence(sequences, template);
+            }
+            timestamps[i] = timestampSource.next(timestampResolution);
+            fileNames[i * filesPerName] = template.render(getFileName(enteredNames[i]), timestamps[i], sequence, resolver, sanitizer);
+            for (int j = 1; j < filesPerName; j++) {
+                fileNames[i * filesPerName + j] = additionalTemplates.get(j - 1).render(enteredNames[i], timestamps[i], sequence, resolver, sanitizer);
+            }
+        }
+        Statistics.record(type, Operation.RENDER, start);
+
+        ChildNames childNames = ChildNames.getInstance(directory.getProject());
+        boolean completed = false;
+        try {
+            for (int i = 0; i < fileNames.length; i++) {
+                CreationPlan.Target target = plan.getTarget(i);
+                long timestamp = timestamps[i / filesPerName];
+                if (target.isMissing()) {
+                    plan.set(i, target, target.reserve(fileNames[i], uniqueSuffix, timestamp), false);
+                } else if (uniqueSuffix == UniqueSuffix.NONE) {
+                    target.getExisting().checkCreateFile(fileNames[i]);
+                    plan.set(i, target, fileNames[i], false);
+                } else {
+                    plan.set(i, target, childNames.reserve(target.getExisting().getVirtualFile(), fileNames[i], uniqueSuffix, timestamp), true);
+                }
+            }
+            completed = true;
+        } finally {
+            if (!completed) {
+                plan.release(childNames, null);
+            }
+        }
+        return plan;
+    }
+
+    private static CreationPlan.Target findTarget(PsiDirectory directory, String subdirectory) {
+        PsiDirectory current = directory;
+        List<String> segments = StringUtil.split(subdirectory, "/");
+        for (int i = 0; i < segments.size(); i++) {
+            PsiDirectory next = current.findSubdirectory(segments.get(i));
+            if (next == null) {
+                List<String> missing = segments.subList(i, segments.size());
+                return new CreationPlan.Target(current, missing.toArray(new String[missing.size()]));
+            }
+            current = next;
+        }
+        return new CreationPlan.Target(current, new String[0]);
+    }
+
+    /**
+     * Creates the planned directories and files. Requires a write action. A plan whose directories changed in the
+     * meantime, or whose sequence numbers were taken by another plan, is made again inside the write action.
+     */
+    private PsiElement[] createFiles(CreationPlan plan) {
+        ChildNames childNames = ChildNames.getInstance(plan.getDirectory().getProject());
+        SequenceCounters sequences = template.usesSequence() ? SequenceCounters.getInstance(plan.getDirectory().getProject()) : null;
+        if (!plan.isValid() || sequences != null && !plan.hasCurrentSequences(sequences, template)) {
+            plan.release(childNames, null);
+            if (!plan.getDirectory().isValid()) {
+                throw new IncorrectOperationException(MessageBundle.message("error.directory.deleted"));
+            }
+            plan = plan(plan.getNames(), plan.getDirectory());
+        }
+
+        long start = Statistics.start();
+        PsiElement[] created = new PsiElement[plan.size()];
+        try {
+            for (int i = 0; i < created.length; i++) {
+                created[i] = plan.getTarget(i).getOrCreate().createFile(plan.getFileName(i));
+            }
+            if (sequences != null) {
+                plan.takeSequences(sequences, template);
+            }
+        } finally {
+            plan.release(childNames, created);
+        }
+        Statistics.record(type, Operation.CREATE_FILES, start);
+        return created;
+    }
+
+    private static List<String> splitNames(String input) {
+        List<String> names = new ArrayList<String>();
+        for (String line : StringUtil.splitByLines(input)) {
+            String name = line.trim();
+            if (!name.isEmpty()) {
+                names.add(name);
+            }
+        }
+        return names;
     }
 
     @Override
@@ -104,27 +311,170 @@ public class CreateFileWithConfigurableNameAction extends CreateFileAction {
         return MessageBundle.message("progress.creating.file", type, directory.getVirtualFile().getPresentableUrl(), File.separator, newName);
     }
 
-    private String generateFileName(String newFileName) {
-        String result = template;
+    private class BatchValidator extends MyValidator {
+
+        private final Project project;
+        private final PsiDirectory directory;
+        private CreationPlan plan;
+
+        public BatchValidator(Project project, PsiDirectory directory) {
+            super(project, directory);
+            this.project = project;
+            this.directory = directory;
+        }
+
+        @Override
+        public boolean canClose(String inputString) {
+            releasePlan();
+            // Slow variables are computed before the write action that creates the files
+            if (!VariableCache.getInstance(project).resolveExpensive(externalVariables, directory.getVirtualFile())) {
+                return false;
+            }
+
+            plan = planInBackground(splitNames(inputString));
+            if (plan != null && !super.canClose(inputString)) {
+                releasePlan();
+            }
+            return plan != null;
+        }
+
+        @Override
+        public PsiElement[] create(String newName) throws Exception {
+            CreationPlan current = plan;
+            plan = null;
+            if (current != null && !current.getNames().equals(splitNames(newName))) {
+                // Made for other names, its reservations would never be released otherwise
+                current.release(ChildNames.getInstance(project), null);
+                current = null;
+            }
+            if (current == null) {
+                return super.create(newName);
+            }
+            return createFiles(current);
+        }
+
+        private void releasePlan() {
+            if (plan != null) {
+                plan.release(ChildNames.getInstance(project), null);
+                plan = null;
+            }
+        }
+
+        @Nullable
+        private CreationPlan planInBackground(final List<String> names) {
+            final Ref<CreationPlan> result = Ref.create();
+            final Ref<IncorrectOperationException> error = Ref.create();
+            try {
+                ProgressManager.getInstance().runProcessWithProgressSynchronously(new ThrowableComputable<Object, RuntimeException>() {
+                    @Override
+                    public Object compute() {
+                        Runnable planner = new Runnable() {
+                            @Override
+                            public void run() {
+                                try {
+                                    result.set(plan(names, directory));
+                                } catch (IncorrectOperationException e) {
+                                    error.set(e);
+                                }
+                            }
+                        };
+                        // Gives way to write actions and starts over, instead of blocking them until the plan is made
+                        while (!ProgressIndicatorUtils.runInReadActionWithWriteActionPriority(planner)) {
+                            ProgressManager.checkCanceled();
+                            TimeoutUtil.sleep(10);
+                        }
+                        return null;
+                    }
+                }, MessageBundle.message("progress.planning.files", type), true, project);
+            } catch (ProcessCanceledException e) {
+                if (!result.isNull()) {
+                    result.get().release(ChildNames.getInstance(project), null);
+                }
+                return null;
+            }
+
+            if (!error.isNull()) {
+                Messages.showErrorDialog(project, error.get().getMessage(), MessageBundle.message("title.cannot.create.file"));
+                return null;
+            }
+            return result.get();
+        }
+
+        @Override
+        public boolean checkInput(String inputString) {
+            List<String> names = splitNames(inputString);
+            for (String name : names) {
+                if (!super.checkInput(name)) {
+                    return false;
+                }
+            }
+            return !names.isEmpty();
+        }
+    }
+
+    private class FilenamePreview implements CreateFileDialog.Preview {
+
+        private static final int MAX_LINES = 10;
+
+        private final PsiDirectory directory;
+
+        private FilenamePreview(PsiDirectory directory) {
+            this.directory = directory;
+        }
 
-        Matcher matcher = VARIABLE_PATTERN.matcher(result);
-        Date timestamp = new Date();
-        while (matcher.find()) {
-            String variable = matcher.group(1);
-            String replacement = "";
+        @NotNull
+        @Override
+        public List<String> render(@NotNull String input) {
+            List<BoundTemplate> bound;
+            try {
+                bound = bindTemplates();
+            } catch (IllegalArgumentException e) {
+                return Collections.singletonList(MessageBundle.message("preview.error", e.getMessage()));
+            }
 
-            if ("NOW".equals(variable)) {
-                replacement = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(timestamp);
-            } else if ("USER".equals(variable)) {
-                replacement = System.getProperty("user.name");
-            } else if ("NAME".equals(variable)) {
-                replacement = newFileName;
-            } else if (variable.startsWith("NOW;")) {
-                replacement = new SimpleDateFormat(variable.substring(4)).format(timestamp);
+            List<String> names = splitNames(input);
+            int files = names.size() * bound.size();
+            List<String> lines = new ArrayList<String>(Math.min(files, MAX_LINES + bound.size()));
+            for (String name : names) {
+                if (lines.size() >= MAX_LINES) {
+                    lines.add(MessageBundle.message("preview.more", files - lines.size()));
+                    break;
+                }
+                String path = SystemInfo.isWindows ? name.replace('\\', '/') : name;
+                int separator = path.lastIndexOf('/');
+                String directoryPrefix = path.substring(0, separator + 1);
+                String enteredName = path.substring(separator + 1);
+                lines.add(directoryPrefix + bound.get(0).render(getFileName(enteredName)));
+                for (int i = 1; i < bound.size(); i++) {
+                    lines.add(directoryPrefix + bound.get(i).render(enteredName));
+                }
             }
-            result = matcher.replaceFirst(replacement);
-            matcher.reset(result);
+            return lines;
+        }
+
+        /**
+         * Binds the templates again for every (debounced) render, so the preview follows ${NOW} and picks up the
+         * values of expensive variables once they are computed in the background.
+         */
+        private List<BoundTemplate> bindTemplates() {
+            return ApplicationManager.getApplication().runReadAction(new Computable<List<BoundTemplate>>() {
+                @Override
+                public List<BoundTemplate> compute() {
+                    long sequence = 0;
+                    if (template.usesSequence() && directory.isValid()) {
+                        sequence = SequenceCounters.getInstance(directory.getProject()).peek(directory.getVirtualFile(), template);
+                    }
+                    VariableResolver resolver = VariableCache.getInstance(directory.getProject()).createPreviewResolver(directory.getVirtualFile());
+                    RenderContext context = new RenderContext(null, TimestampSource.getDefault().peek(), sequence, resolver);
+                    FilenameSanitizer sanitizer = PluginSettings.getInstance(directory.getProject()).getSanitizer();
+                    List<BoundTemplate> result = new ArrayList<BoundTemplate>(1 + additionalTemplates.size());
+                    result.add(template.bind(context, sanitizer));
+                    for (FilenameTemplate additional : additionalTemplates) {
+                        result.add(additional.bind(context, sanitizer));
+                    }
+                    return result;
+                }
+            });
         }
-        return result;
     }
 }
@@ -0,0 +1,220 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+package be.cegeka.intellij.plugin.configurablefilename;
+
+import be.cegeka.intellij.plugin.configurablefilename.directory.ChildNames;
+import be.cegeka.intellij.plugin.configurablefilename.directory.SequenceCounters;
+import be.cegeka.intellij.plugin.configurablefilename.template.FilenameTemplate;
+import be.cegeka.intellij.plugin.configurablefilename.template.UniqueSuffix;
+import com.intellij.openapi.util.SystemInfo;
+import com.intellij.psi.PsiDirectory;
+import com.intellij.psi.PsiElement;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * The names and target directories of a batch of new files, computed in a read action so the write action only has to
+ * create the missing directories and the files. Every entered name gives a fixed number of files, the main file
+ * followed by the additional files of the type.
+ */
+final class CreationPlan {
+
+    private final PsiDirectory directory;
+    private final List<String> names;
+    private final int filesPerName;
+    private final Target[] targets;
+    private final String[] fileNames;
+    private final boolean[] reserved;
+
+    CreationPlan(PsiDirectory directory, List<String> names, int filesPerName) {
+        this.directory = directory;
+        this.names = names;
+        this.filesPerName = filesPerName;
+        this.targets = new Target[names.size() * filesPerName];
+        this.fileNames = new String[targets.length];
+        this.reserved = new boolean[targets.length];
+    }
+
+    PsiDirectory getDirectory() {
+        return directory;
+    }
+
+    List<String> getNames() {
+        return names;
+    }
+
+    int getFilesPerName() {
+        return filesPerName;
+    }
+
+    /**
+     * The number of files, the files of the name at index {@code i} start at {@code i * getFilesPerName()}.
+     */
+    int size() {
+        return fileNames.length;
+    }
+
+    Target getTarget(int index) {
+        return targets[index];
+    }
+
+    String getFileName(int index) {
+        return fileNames[index];
+    }
+
+    void set(int index, Target target, String fileName, boolean reserved) {
+        this.targets[index] = target;
+        this.fileNames[index] = fileName;
+        this.reserved[index] = reserved;
+    }
+
+    /**
+     * False if a directory the plan relies on was deleted or moved after the plan was made.
+     */
+    boolean isValid() {
+        if (!directory.isValid()) return false;
+        for (Target target : targets) {
+            if (target != null && !target.isValid()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * False if sequence numbers the plan peeked were taken by someone else after the plan was made.
+     */
+    boolean hasCurrentSequences(SequenceCounters counters, FilenameTemplate template) {
+        for (Target target : targets) {
+            if (target != null && !target.hasCurrentSequence(counters, template)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Takes the sequence numbers the plan used. Only done when the plan is executed, so plans that are cancelled or
+     * made again do not skip numbers.
+     */
+    void takeSequences(SequenceCounters counters, FilenameTemplate template) {
+        for (Target target : targets) {
+            if (target != null) target.takeSequence(counters, template);
+        }
+    }
+
+    /**
+     * Releases the reserved names of the files that were not created.
+     */
+    void release(ChildNames childNames, PsiElement[] created) {
+        for (int i = 0; i < fileNames.length; i++) {
+            if (reserved[i] && (created == null || created[i] == null) && targets[i].existing.isValid()) {
+                childNames.release(targets[i].existing.getVirtualFile(), fileNames[i]);
+            }
+        }
+    }
+
+    static final class Target {
+        private final PsiDirectory existing;
+        private final String[] missing;
+
+        private PsiDirectory resolved;
+        // The first and the last sequence number of the plan, 0 while no number was used
+        private long firstSequence;
+        private long sequence;
+        private Set<String> plannedNames;
+
+        Target(PsiDirectory existing, String[] missing) {
+            this.existing = existing;
+            this.missing = missing;
+            this.resolved = missing.length == 0 ? existing : null;
+        }
+
+        PsiDirectory getExisting() {
+            return existing;
+        }
+
+        boolean isMissing() {
+            return missing.length > 0;
+        }
+
+        boolean isValid() {
+            return existing.isValid() && (resolved == null || resolved.isValid());
+        }
+
+        /**
+         * Continues after the files of an existing directory without taking the numbers yet, see
+         * {@link CreationPlan#takeSequences}. A directory that does not exist yet has no files to continue from.
+         */
+        long nextSequence(SequenceCounters counters, FilenameTemplate template) {
+            if (firstSequence == 0) {
+                firstSequence = isMissing() ? 1 : counters.peek(existing.getVirtualFile(), template);
+                sequence = firstSequence - 1;
+            }
+            return ++sequence;
+        }
+
+        private boolean hasCurrentSequence(SequenceCounters counters, FilenameTemplate template) {
+            return firstSequence == 0 || isMissing() || !existing.isValid()
+                    || counters.peek(existing.getVirtualFile(), template) == firstSequence;
+        }
+
+        private void takeSequence(SequenceCounters counters, FilenameTemplate template) {
+            if (firstSequence != 0 && !isMissing() && existing.isValid()) {
+                counters.advance(existing.getVirtualFile(), template, sequence);
+            }
+        }
+
+        /**
+         * Unique names for a directory that does not exist yet, it can only collide with files of the same plan.
+         */
+        String reserve(String name, UniqueSuffix suffix, long timestamp) {
+            if (suffix == UniqueSuffix.NONE) return name;
+
+            if (plannedNames == null) plannedNames = new HashSet<String>();
+            for (int attempt = 0; ; attempt++) {
+                String candidate = suffix.candidate(name, attempt, timestamp);
+                if (plannedNames.add(SystemInfo.isFileSystemCaseSensitive ? candidate : candidate.toLowerCase(Locale.ENGLISH))) {
+                    return candidate;
+                }
+            }
+        }
+
+        /**
+         * Returns the target directory, creating the missing ones. Directories created by someone else in the meantime
+         * are reused. Requires a write action.
+         */
+        PsiDirectory getOrCreate() {
+            if (resolved == null) {
+                PsiDirectory current = existing;
+                for (String name : missing) {
+                    PsiDirectory subdirectory = current.findSubdirectory(name);
+                    current = subdirectory != null ? subdirectory : current.createSubdirectory(name);
+                }
+                resolved = current;
+            }
+            return resolved;
+        }
+    }
+}
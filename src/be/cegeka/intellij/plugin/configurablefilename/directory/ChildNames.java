@@ -0,0 +1,189 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.cegeka.intellij.plugin.configurablefilename.directory;
+
+import be.cegeka.intellij.plugin.configurablefilename.template.UniqueSuffix;
+import com.intellij.openapi.components.ProjectComponent;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.SystemInfo;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.*;
+import com.intellij.util.messages.MessageBusConnection;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public class ChildNames implements ProjectComponent {
+
+    private static final int MAX_ATTEMPTS = 10000;
+
+    private final Project project;
+    private final ConcurrentMap<VirtualFile, Set<String>> children = new ConcurrentHashMap<VirtualFile, Set<String>>();
+
+    private MessageBusConnection connection;
+
+    public ChildNames(Project project) {
+        this.project = project;
+    }
+
+    public static ChildNames getInstance(Project project) {
+        return project.getComponent(ChildNames.class);
+    }
+
+    /**
+     * Reserves a name in the directory that no existing child or earlier reservation uses, applying the suffix
+     * strategy on collisions. A reservation for a file that could not be created must be released.
+     */
+    @NotNull
+    public String reserve(@NotNull VirtualFile directory, @NotNull String name, @NotNull UniqueSuffix suffix, long timestamp) {
+        if (suffix == UniqueSuffix.NONE) return name;
+
+        Set<String> names = getNames(directory);
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            String candidate = suffix.candidate(name, attempt, timestamp);
+            if (names.add(key(candidate))) {
+                return candidate;
+            }
+        }
+        return name;
+    }
+
+    public void release(@NotNull VirtualFile directory, @NotNull String name) {
+        if (directory.findChild(name) == null) {
+            remove(directory, name);
+        }
+    }
+
+    private Set<String> getNames(VirtualFile directory) {
+        Set<String> names = children.get(directory);
+        if (names == null) {
+            names = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+            for (VirtualFile child : directory.getChildren()) {
+                names.add(key(child.getName()));
+            }
+            Set<String> existing = children.putIfAbsent(directory, names);
+            if (existing != null) names = existing;
+        }
+        return names;
+    }
+
+    private static String key(String name) {
+        return SystemInfo.isFileSystemCaseSensitive ? name : name.toLowerCase(Locale.ENGLISH);
+    }
+
+    private void add(VirtualFile directory, String name) {
+        Set<String> names = directory == null ? null : children.get(directory);
+        if (names != null) names.add(key(name));
+    }
+
+    private void remove(VirtualFile directory, String name) {
+        Set<String> names = directory == null ? null : children.get(directory);
+        if (names != null) names.remove(key(name));
+    }
+
+    private void pruneDeletedDirectories() {
+        for (Iterator<VirtualFile> it = children.keySet().iterator(); it.hasNext(); ) {
+            if (!it.next().isValid()) {
+                it.remove();
+            }
+        }
+    }
+
+    @Override
+    public void projectOpened() {
+        connection = project.getMessageBus().connect();
+        connection.subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener.Adapter() {
+            @Override
+            public void before(@NotNull List<? extends VFileEvent> events) {
+                if (children.isEmpty()) return;
+                for (VFileEvent event : events) {
+                    if (event instanceof VFileDeleteEvent) {
+                        remove(event.getFile().getParent(), event.getFile().getName());
+                    } else if (event instanceof VFileMoveEvent) {
+                        remove(((VFileMoveEvent) event).getOldParent(), event.getFile().getName());
+                    } else if (event instanceof VFilePropertyChangeEvent
+                            && VirtualFile.PROP_NAME.equals(((VFilePropertyChangeEvent) event).getPropertyName())) {
+                        remove(event.getFile().getParent(), (String) ((VFilePropertyChangeEvent) event).getOldValue());
+                    }
+                }
+            }
+
+            @Override
+            public void after(@NotNull List<? extends VFileEvent> events) {
+                if (children.isEmpty()) return;
+                boolean deleted = false;
+                for (VFileEvent event : events) {
+                    if (event instanceof VFileCreateEvent) {
+                        add(((VFileCreateEvent) event).getParent(), ((VFileCreateEvent) event).getChildName());
+                    } else if (event instanceof VFileCopyEvent) {
+                        add(((VFileCopyEvent) event).getNewParent(), ((VFileCopyEvent) event).getNewChildName());
+                    } else if (event instanceof VFileMoveEvent) {
+                        add(((VFileMoveEvent) event).getNewParent(), event.getFile().getName());
+                    } else if (event instanceof VFilePropertyChangeEvent
+                            && VirtualFile.PROP_NAME.equals(((VFilePropertyChangeEvent) event).getPropertyName())) {
+                        add(event.getFile().getParent(), (String) ((VFilePropertyChangeEvent) event).getNewValue());
+                    } else if (event instanceof VFileDeleteEvent) {
+                        deleted = true;
+                    }
+                }
+                if (deleted) {
+                    pruneDeletedDirectories();
+                }
+            }
+        });
+    }
+
+    @Override
+    public void projectClosed() {
+        if (connection != null) {
+            connection.disconnect();
+            connection = null;
+        }
+        children.clear();
+    }
+
+    @Override
+    public void initComponent() {
+    }
+
+    @Override
+    public void disposeComponent() {
+    }
+
+    @NotNull
+    @Override
+    public String getComponentName() {
+        return "ConfigurableFileNameChildNames";
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.cegeka.intellij.plugin.configurablefilename.directory;
+
+import be.cegeka.intellij.plugin.configurablefilename.settings.PluginSettings;
+import be.cegeka.intellij.plugin.configurablefilename.template.FilenameSanitizer;
+import be.cegeka.intellij.plugin.configurablefilename.template.FilenameTemplate;
+import com.intellij.openapi.components.ProjectComponent;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.*;
+import com.intellij.util.messages.MessageBusConnection;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SequenceCounters implements ProjectComponent {
+
+    private final Project project;
+    private final ConcurrentMap<VirtualFile, ConcurrentMap<String, Counter>> counters =
+            new ConcurrentHashMap<VirtualFile, ConcurrentMap<String, Counter>>();
+
+    private MessageBusConnection connection;
+
+    public SequenceCounters(Project project) {
+        this.project = project;
+    }
+
+    public static SequenceCounters getInstance(Project project) {
+        return project.getComponent(SequenceCounters.class);
+    }
+
+    public long next(@NotNull VirtualFile directory, @NotNull FilenameTemplate template) {
+        return getCounter(directory, template).value.incrementAndGet();
+    }
+
+    public long peek(@NotNull VirtualFile directory, @NotNull FilenameTemplate template) {
+        return getCounter(directory, template).value.get() + 1;
+    }
+
+    /**
+     * Marks the numbers up to {@code sequence} as taken, for numbers that were peeked and then used.
+     */
+    public void advance(@NotNull VirtualFile directory, @NotNull FilenameTemplate template, long sequence) {
+        advance(getCounter(directory, template), sequence);
+    }
+
+    private static void advance(Counter counter, long sequence) {
+        long current = counter.value.get();
+        while (sequence > current && !counter.value.compareAndSet(current, sequence)) {
+            current = counter.value.get();
+        }
+    }
+
+    private Counter getCounter(VirtualFile directory, FilenameTemplate template) {
+        ConcurrentMap<String, Counter> directoryCounters = counters.get(directory);
+        if (directoryCounters == null) {
+            directoryCounters = new ConcurrentHashMap<String, Counter>();
+            ConcurrentMap<String, Counter> existing = counters.putIfAbsent(directory, directoryCounters);
+            if (existing != null) directoryCounters = existing;
+        }
+
+        Counter counter = directoryCounters.get(template.getSource());
+        if (counter == null) {
+            counter = new Counter(template, scan(directory, template));
+            Counter existing = directoryCounters.putIfAbsent(template.getSource(), counter);
+            if (existing != null) counter = existing;
+        }
+        return counter;
+    }
+
+    private long scan(VirtualFile directory, FilenameTemplate template) {
+        FilenameSanitizer sanitizer = PluginSettings.getInstance(project).getSanitizer();
+        long max = 0;
+        for (VirtualFile child : directory.getChildren()) {
+            max = Math.max(max, template.parseSequence(child.getName(), sanitizer));
+        }
+        return max;
+    }
+
+    private void fileAdded(VirtualFile directory, String name) {
+        ConcurrentMap<String, Counter> directoryCounters = directory == null ? null : counters.get(directory);
+        if (directoryCounters == null) return;
+
+        FilenameSanitizer sanitizer = PluginSettings.getInstance(project).getSanitizer();
+        for (Counter counter : directoryCounters.values()) {
+            advance(counter, counter.template.parseSequence(name, sanitizer));
+        }
+    }
+
+    private void pruneDeletedDirectories() {
+        for (Iterator<VirtualFile> it = counters.keySet().iterator(); it.hasNext(); ) {
+            if (!it.next().isValid()) {
+                it.remove();
+            }
+        }
+    }
+
+    @Override
+    public void projectOpened() {
+        connection = project.getMessageBus().connect();
+        connection.subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener.Adapter() {
+            @Override
+            public void after(@NotNull List<? extends VFileEvent> events) {
+                if (counters.isEmpty()) return;
+                boolean deleted = false;
+                for (VFileEvent event : events) {
+                    if (event instanceof VFileCreateEvent) {
+                        fileAdded(((VFileCreateEvent) event).getParent(), ((VFileCreateEvent) event).getChildName());
+                    } else if (event instanceof VFileCopyEvent) {
+                        fileAdded(((VFileCopyEvent) event).getNewParent(), ((VFileCopyEvent) event).getNewChildName());
+                    } else if (event instanceof VFileMoveEvent) {
+                        fileAdded(((VFileMoveEvent) event).getNewParent(), event.getFile().getName());
+                    } else if (event instanceof VFilePropertyChangeEvent
+                            && VirtualFile.PROP_NAME.equals(((VFilePropertyChangeEvent) event).getPropertyName())) {
+                        fileAdded(event.getFile().getParent(), (String) ((VFilePropertyChangeEvent) event).getNewValue());
+                    } else if (event instanceof VFileDeleteEvent) {
+                        deleted = true;
+                    }
+                }
+                if (deleted) {
+                    // Numbers of deleted files are never handed out again, only forget deleted directories
+                    pruneDeletedDirectories();
+                }
+            }
+        });
+    }
+
+    @Override
+    public void projectClosed() {
+        if (connection != null) {
+            connection.disconnect();
+            connection = null;
+        }
+        counters.clear();
+    }
+
+    @Override
+    public void initComponent() {
+    }
+
+    @Override
+    public void disposeComponent() {
+    }
+
+    @NotNull
+    @Override
+    public String getComponentName() {
+        return "ConfigurableFileNameSequenceCounters";
+    }
+
+    private static class Counter {
+        private final FilenameTemplate template;
+        private final AtomicLong value;
+
+        private Counter(FilenameTemplate template, long value) {
+            this.template = template;
+            this.value = new AtomicLong(value);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.cegeka.intellij.plugin.configurablefilename.index;
+
+import be.cegeka.intellij.plugin.configurablefilename.settings.PluginSettings;
+import be.cegeka.intellij.plugin.configurablefilename.template.TemplateMatcher;
+import com.intellij.openapi.components.ProjectComponent;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.util.Ref;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.*;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.messages.MessageBusConnection;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The newest files of every type that was asked for. They are read from {@link TemplatedFileIndex} once and then kept
+ * up to date from file events: a new file is added when it is newer than the ones kept, a type is read again only when
+ * one of its kept files is deleted or moved.
+ */
+public class LatestTemplatedFiles implements ProjectComponent {
+
+    private final Project project;
+    // Queries run in read actions and the events in write actions, so a type is never read and updated at once
+    private final ConcurrentMap<String, NewestFiles<VirtualFile>> latest = new ConcurrentHashMap<String, NewestFiles<VirtualFile>>();
+
+    private MessageBusConnection connection;
+
+    public LatestTemplatedFiles(Project project) {
+        this.project = project;
+    }
+
+    public static LatestTemplatedFiles getInstance(Project project) {
+        return project.getComponent(LatestTemplatedFiles.class);
+    }
+
+    @NotNull
+    List<VirtualFile> find(@NotNull String type, int count) {
+        NewestFiles<VirtualFile> cached = latest.get(type);
+        if (cached == null || cached.getCount() < count) {
+            cached = scan(type, count);
+            latest.put(type, cached);
+        }
+        return cached.getFiles(count);
+    }
+
+    /**
+     * Goes over all files of the type and keeps the newest ones, only {@code count} files are kept in memory.
+     */
+    private NewestFiles<VirtualFile> scan(String type, int count) {
+        final Ref<NewestFiles<VirtualFile>> newest = Ref.create(new NewestFiles<VirtualFile>(count));
+        FileBasedIndex.getInstance().processValues(TemplatedFileIndex.NAME, type, null, new FileBasedIndex.ValueProcessor<TemplatedFile>() {
+            @Override
+            public boolean process(VirtualFile file, TemplatedFile value) {
+                newest.set(newest.get().with(file, file.getName(), value));
+                return true;
+            }
+        }, GlobalSearchScope.projectScope(project));
+        return newest.get();
+    }
+
+    void clear() {
+        latest.clear();
+    }
+
+    private void fileAdded(VirtualFile file) {
+        if (latest.isEmpty() || file == null) return;
+        if (file.isDirectory()) {
+            // A copied directory can bring any number of files
+            clear();
+            return;
+        }
+        if (!file.isInLocalFileSystem() || !ProjectRootManager.getInstance(project).getFileIndex().isInContent(file)) return;
+
+        TemplateMatcher.Match<String> match = PluginSettings.getInstance(project).getTemplateMatcher().match(file.getName());
+        if (match == null) return;
+
+        NewestFiles<VirtualFile> cached = latest.get(match.getKey());
+        if (cached != null) {
+            latest.put(match.getKey(), cached.with(file, file.getName(), TemplatedFile.of(match.getParsed())));
+        }
+    }
+
+    private void fileRemoved(VirtualFile file) {
+        if (latest.isEmpty()) return;
+        if (file.isDirectory()) {
+            clear();
+            return;
+        }
+        for (Iterator<NewestFiles<VirtualFile>> it = latest.values().iterator(); it.hasNext(); ) {
+            if (it.next().contains(file)) {
+                it.remove();
+            }
+        }
+    }
+
+    @Override
+    public void projectOpened() {
+        connection = project.getMessageBus().connect();
+        connection.subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener.Adapter() {
+            @Override
+            public void before(@NotNull List<? extends VFileEvent> events) {
+                for (VFileEvent event : events) {
+                    if (event instanceof VFileDeleteEvent || event instanceof VFileMoveEvent
+                            || event instanceof VFilePropertyChangeEvent
+                            && VirtualFile.PROP_NAME.equals(((VFilePropertyChangeEvent) event).getPropertyName())) {
+                        fileRemoved(event.getFile());
+                    }
+                }
+            }
+
+            @Override
+            public void after(@NotNull List<? extends VFileEvent> events) {
+                for (VFileEvent event : events) {
+                    if (event instanceof VFileCreateEvent || event instanceof VFileCopyEvent || event instanceof VFileMoveEvent
+                            || event instanceof VFilePropertyChangeEvent
+                            && VirtualFile.PROP_NAME.equals(((VFilePropertyChangeEvent) event).getPropertyName())) {
+                        fileAdded(event instanceof VFileCopyEvent ? findCopy((VFileCopyEvent) event) : event.getFile());
+                    }
+                }
+            }
+        });
+    }
+
+    private static VirtualFile findCopy(VFileCopyEvent event) {
+        VirtualFile parent = event.getNewParent();
+        return parent.isValid() ? parent.findChild(event.getNewChildName()) : null;
+    }
+
+    @Override
+    public void projectClosed() {
+        if (connection != null) {
+            connection.disconnect();
+            connection = null;
+        }
+        clear();
+    }
+
+    @Override
+    public void initComponent() {
+    }
+
+    @Override
+    public void disposeComponent() {
+    }
+
+    @NotNull
+    @Override
+    public String getComponentName() {
+        return "ConfigurableFileNameLatestTemplatedFiles";
+    }
+}
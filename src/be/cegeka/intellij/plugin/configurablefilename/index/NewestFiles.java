@@ -0,0 +1,118 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.cegeka.intellij.plugin.configurablefilename.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The newest of the files created with a template, at most {@code count} of them. Newest means the latest ${NOW}, then
+ * the highest ${SEQ}, then the last filename. Adding a file returns a new instance, so it can be read while another
+ * thread adds to it.
+ */
+final class NewestFiles<F> {
+
+    private static final Comparator<Entry<?>> NEWEST_FIRST = new Comparator<Entry<?>>() {
+        @Override
+        public int compare(Entry<?> a, Entry<?> b) {
+            int result = compare(b.value.hasTimestamp() ? b.value.getTimestamp() : Long.MIN_VALUE,
+                    a.value.hasTimestamp() ? a.value.getTimestamp() : Long.MIN_VALUE);
+            if (result == 0) result = compare(b.value.getSequence(), a.value.getSequence());
+            if (result == 0) result = b.filename.compareTo(a.filename);
+            return result;
+        }
+
+        private int compare(long x, long y) {
+            return x < y ? -1 : (x == y ? 0 : 1);
+        }
+    };
+
+    private final int count;
+    // Newest first
+    private final List<Entry<F>> entries;
+
+    NewestFiles(int count) {
+        this(count, Collections.<Entry<F>>emptyList());
+    }
+
+    private NewestFiles(int count, List<Entry<F>> entries) {
+        this.count = count;
+        this.entries = entries;
+    }
+
+    /**
+     * The number of files kept, fewer are kept only when there are no more.
+     */
+    int getCount() {
+        return count;
+    }
+
+    NewestFiles<F> with(F file, String filename, TemplatedFile value) {
+        Entry<F> entry = new Entry<F>(file, filename, value);
+        int index = Collections.binarySearch(entries, entry, NEWEST_FIRST);
+        if (index < 0) index = -index - 1;
+        if (index >= count) return this;
+
+        List<Entry<F>> updated = new ArrayList<Entry<F>>(Math.min(entries.size() + 1, count));
+        updated.addAll(entries.subList(0, index));
+        updated.add(entry);
+        updated.addAll(entries.subList(index, Math.min(entries.size(), count - 1)));
+        return new NewestFiles<F>(count, updated);
+    }
+
+    /**
+     * Returns the newest files, newest first.
+     */
+    List<F> getFiles(int count) {
+        int size = Math.min(count, entries.size());
+        List<F> result = new ArrayList<F>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(entries.get(i).file);
+        }
+        return result;
+    }
+
+    boolean contains(F file) {
+        for (Entry<F> entry : entries) {
+            if (entry.file.equals(file)) return true;
+        }
+        return false;
+    }
+
+    private static final class Entry<F> {
+        private final F file;
+        private final String filename;
+        private final TemplatedFile value;
+
+        private Entry(F file, String filename, TemplatedFile value) {
+            this.file = file;
+            this.filename = filename;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.cegeka.intellij.plugin.configurablefilename.index;
+
+import be.cegeka.intellij.plugin.configurablefilename.messages.MessageBundle;
+import be.cegeka.intellij.plugin.configurablefilename.settings.PluginSettings;
+import be.cegeka.intellij.plugin.configurablefilename.statistics.CopyStatisticsAction;
+import com.intellij.notification.Notification;
+import com.intellij.notification.NotificationType;
+import com.intellij.notification.Notifications;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.fileEditor.FileEditorManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.popup.JBPopupFactory;
+import com.intellij.openapi.ui.popup.PopupStep;
+import com.intellij.openapi.ui.popup.util.BaseListPopupStep;
+import com.intellij.openapi.vfs.VirtualFile;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Opens the newest file of a type, e.g. the last migration. Not available while indexing, the files are found in
+ * {@link TemplatedFileIndex}.
+ */
+public class OpenLatestFileAction extends AnAction {
+
+    @Override
+    public void update(AnActionEvent e) {
+        Project project = e.getProject();
+        e.getPresentation().setEnabledAndVisible(project != null
+                && !PluginSettings.getInstance(project).getTemplateMatcher().getKeys().isEmpty());
+    }
+
+    @Override
+    public void actionPerformed(AnActionEvent e) {
+        final Project project = e.getProject();
+        if (project == null) return;
+
+        final Map<String, VirtualFile> latest = new HashMap<String, VirtualFile>();
+        List<String> types = new ArrayList<String>();
+        for (String type : PluginSettings.getInstance(project).getTemplateMatcher().getKeys()) {
+            List<VirtualFile> files = TemplatedFiles.findLatest(project, type, 1);
+            if (!files.isEmpty()) {
+                latest.put(type, files.get(0));
+                types.add(type);
+            }
+        }
+        if (types.isEmpty()) {
+            Notifications.Bus.notify(new Notification(CopyStatisticsAction.NOTIFICATION_GROUP, MessageBundle.message("latest.title"),
+                    MessageBundle.message("latest.none"), NotificationType.INFORMATION), project);
+            return;
+        }
+
+        JBPopupFactory.getInstance().createListPopup(new BaseListPopupStep<String>(MessageBundle.message("latest.title"), types) {
+            @Override
+            public String getTextFor(String type) {
+                return MessageBundle.message("latest.item", type, latest.get(type).getName());
+            }
+
+            @Override
+            public PopupStep onChosen(final String type, boolean finalChoice) {
+                return doFinalStep(new Runnable() {
+                    @Override
+                    public void run() {
+                        VirtualFile file = latest.get(type);
+                        if (file.isValid()) {
+                            FileEditorManager.getInstance(project).openFile(file, true);
+                        }
+                    }
+                });
+            }
+        }).showCenteredInCurrentWindow(project);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+package be.cegeka.intellij.plugin.configurablefilename.index;
+
+import be.cegeka.intellij.plugin.configurablefilename.template.ParsedFilename;
+
+/**
+ * The values recovered from the name of a file that matches a configured template.
+ */
+public final class TemplatedFile {
+
+    private final String name;
+    private final long timestamp;
+    private final boolean hasTimestamp;
+    private final long sequence;
+
+    TemplatedFile(String name, long timestamp, boolean hasTimestamp, long sequence) {
+        this.name = name;
+        this.timestamp = timestamp;
+        this.hasTimestamp = hasTimestamp;
+        this.sequence = sequence;
+    }
+
+    static TemplatedFile of(ParsedFilename parsed) {
+        return new TemplatedFile(parsed.getName(), parsed.getTimestamp(), parsed.hasTimestamp(), parsed.getSequence());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean hasTimestamp() {
+        return hasTimestamp;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        TemplatedFile that = (TemplatedFile) o;
+        return timestamp == that.timestamp
+                && hasTimestamp == that.hasTimestamp
+                && sequence == that.sequence
+                && (name == null ? that.name == null : name.equals(that.name));
+    }
+
+    @Override
+    public int hashCode() {
+        int result = name == null ? 0 : name.hashCode();
+        result = 31 * result + (int) (timestamp ^ (timestamp >>> 32));
+        result = 31 * result + (hasTimestamp ? 1 : 0);
+        result = 31 * result + (int) (sequence ^ (sequence >>> 32));
+        return result;
+    }
+}
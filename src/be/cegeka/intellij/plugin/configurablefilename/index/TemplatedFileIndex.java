@@ -0,0 +1,148 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+package be.cegeka.intellij.plugin.configurablefilename.index;
+
+import be.cegeka.intellij.plugin.configurablefilename.settings.PluginSettings;
+import be.cegeka.intellij.plugin.configurablefilename.template.TemplateMatcher;
+import com.intellij.ide.util.PropertiesComponent;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.IOUtil;
+import com.intellij.util.io.KeyDescriptor;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Indexes the files whose name matches a configured template by the type of the template. Only the filename is indexed,
+ * the content is never read.
+ */
+public class TemplatedFileIndex extends FileBasedIndexExtension<String, TemplatedFile> {
+
+    public static final ID<String, TemplatedFile> NAME = ID.create("be.cegeka.intellij.plugin.configurablefilename.templatedFiles");
+
+    private static final String TEMPLATES_PROPERTY = "ConfigurableFilename.indexedTemplates";
+
+    private static final DataIndexer<String, TemplatedFile, FileContent> INDEXER = new DataIndexer<String, TemplatedFile, FileContent>() {
+        @NotNull
+        @Override
+        public Map<String, TemplatedFile> map(@NotNull FileContent inputData) {
+            Project project = inputData.getProject();
+            if (project == null || project.isDefault() || project.isDisposed()) return Collections.emptyMap();
+
+            TemplateMatcher.Match<String> match = PluginSettings.getInstance(project).getTemplateMatcher().match(inputData.getFileName());
+            if (match == null) return Collections.emptyMap();
+
+            return Collections.singletonMap(match.getKey(), TemplatedFile.of(match.getParsed()));
+        }
+    };
+
+    private static final DataExternalizer<TemplatedFile> EXTERNALIZER = new DataExternalizer<TemplatedFile>() {
+        @Override
+        public void save(@NotNull DataOutput out, TemplatedFile value) throws IOException {
+            out.writeBoolean(value.getName() != null);
+            if (value.getName() != null) {
+                IOUtil.writeUTF(out, value.getName());
+            }
+            out.writeBoolean(value.hasTimestamp());
+            out.writeLong(value.getTimestamp());
+            out.writeLong(value.getSequence());
+        }
+
+        @Override
+        public TemplatedFile read(@NotNull DataInput in) throws IOException {
+            String name = in.readBoolean() ? IOUtil.readUTF(in) : null;
+            boolean hasTimestamp = in.readBoolean();
+            long timestamp = in.readLong();
+            return new TemplatedFile(name, timestamp, hasTimestamp, in.readLong());
+        }
+    };
+
+    /**
+     * The index depends on the configured templates. It is rebuilt when they differ from the ones it was last built
+     * with for this project.
+     */
+    public static void templatesChanged(@NotNull Project project, @NotNull String templates) {
+        String fingerprint = Integer.toHexString(templates.hashCode());
+        PropertiesComponent properties = PropertiesComponent.getInstance(project);
+        if (!fingerprint.equals(properties.getValue(TEMPLATES_PROPERTY))) {
+            properties.setValue(TEMPLATES_PROPERTY, fingerprint);
+            LatestTemplatedFiles.getInstance(project).clear();
+            FileBasedIndex.getInstance().requestRebuild(NAME);
+        }
+    }
+
+    @NotNull
+    @Override
+    public ID<String, TemplatedFile> getName() {
+        return NAME;
+    }
+
+    @NotNull
+    @Override
+    public DataIndexer<String, TemplatedFile, FileContent> getIndexer() {
+        return INDEXER;
+    }
+
+    @NotNull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @NotNull
+    @Override
+    public DataExternalizer<TemplatedFile> getValueExternalizer() {
+        return EXTERNALIZER;
+    }
+
+    @NotNull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return new FileBasedIndex.InputFilter() {
+            @Override
+            public boolean acceptInput(@NotNull VirtualFile file) {
+                return file.isInLocalFileSystem();
+            }
+        };
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return false;
+    }
+
+    @Override
+    public int getVersion() {
+        return 2;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+package be.cegeka.intellij.plugin.configurablefilename.rename;
+
+import be.cegeka.intellij.plugin.configurablefilename.template.ParsedFilename;
+import com.intellij.openapi.vfs.VirtualFile;
+
+public final class FileRename {
+
+    private final VirtualFile file;
+    private final String oldName;
+    private ParsedFilename parsed;
+    private String newName;
+    private long sequence = -1;
+    private boolean conflict;
+
+    FileRename(VirtualFile file) {
+        this.file = file;
+        this.oldName = file.getName();
+    }
+
+    public VirtualFile getFile() {
+        return file;
+    }
+
+    public String getOldName() {
+        return oldName;
+    }
+
+    /**
+     * The name rendered with the new template, null if the current name does not match the previous template.
+     */
+    public String getNewName() {
+        return newName;
+    }
+
+    void setNewName(String newName) {
+        this.newName = newName;
+    }
+
+    /**
+     * The number given to a file that had none, -1 when the new name keeps the recovered number or has none.
+     */
+    long getSequence() {
+        return sequence;
+    }
+
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    ParsedFilename getParsed() {
+        return parsed;
+    }
+
+    void setParsed(ParsedFilename parsed) {
+        this.parsed = parsed;
+    }
+
+    /**
+     * True if the new name is already taken in the directory, the file is then left alone.
+     */
+    public boolean isConflict() {
+        return conflict;
+    }
+
+    void setConflict(boolean conflict) {
+        this.conflict = conflict;
+    }
+}
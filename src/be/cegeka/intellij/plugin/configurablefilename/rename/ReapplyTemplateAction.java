@@ -0,0 +1,112 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+package be.cegeka.intellij.plugin.configurablefilename.rename;
+
+import be.cegeka.intellij.plugin.configurablefilename.CreateFileWithConfigurableNameAction;
+import be.cegeka.intellij.plugin.configurablefilename.messages.MessageBundle;
+import be.cegeka.intellij.plugin.configurablefilename.settings.PluginSettings;
+import be.cegeka.intellij.plugin.configurablefilename.statistics.CopyStatisticsAction;
+import com.intellij.notification.Notification;
+import com.intellij.notification.NotificationType;
+import com.intellij.notification.Notifications;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.CommonDataKeys;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ReapplyTemplateAction extends AnAction {
+
+    @Override
+    public void update(AnActionEvent e) {
+        Project project = e.getProject();
+        VirtualFile directory = e.getData(CommonDataKeys.VIRTUAL_FILE);
+        e.getPresentation().setEnabledAndVisible(project != null && directory != null && directory.isDirectory()
+                && !getFilenameActions(project).isEmpty());
+    }
+
+    @Override
+    public void actionPerformed(AnActionEvent e) {
+        final Project project = e.getProject();
+        final VirtualFile directory = e.getData(CommonDataKeys.VIRTUAL_FILE);
+        if (project == null || directory == null || !directory.isDirectory()) return;
+
+        List<CreateFileWithConfigurableNameAction> actions = getFilenameActions(project);
+        if (actions.isEmpty()) return;
+
+        ReapplyTemplateDialog dialog = new ReapplyTemplateDialog(project, directory, actions);
+        if (!dialog.showAndGet()) return;
+
+        final TemplateRenamer renamer = new TemplateRenamer(project, dialog.getPreviousTemplate(), dialog.getAction());
+        new Task.Backgroundable(project, MessageBundle.message("rename.progress.title"), true) {
+            private List<FileRename> renames;
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                renames = renamer.findRenames(directory, indicator);
+            }
+
+            @Override
+            public void onSuccess() {
+                if (renames.isEmpty()) {
+                    showNotification(project, MessageBundle.message("rename.nothing", directory.getPresentableUrl()));
+                } else if (new RenamePreviewDialog(project, directory, renames).showAndGet()) {
+                    apply(project, renamer, renames);
+                }
+            }
+        }.queue();
+    }
+
+    private static void apply(final Project project, final TemplateRenamer renamer, final List<FileRename> renames) {
+        new Task.Backgroundable(project, MessageBundle.message("rename.progress.title"), true) {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                int renamed = renamer.apply(renames, indicator);
+                showNotification(project, MessageBundle.message("rename.done", renamed, renames.size()));
+            }
+        }.queue();
+    }
+
+    private static List<CreateFileWithConfigurableNameAction> getFilenameActions(Project project) {
+        List<CreateFileWithConfigurableNameAction> result = new ArrayList<CreateFileWithConfigurableNameAction>();
+        for (AnAction action : PluginSettings.getInstance(project).getActions()) {
+            if (action instanceof CreateFileWithConfigurableNameAction) {
+                result.add((CreateFileWithConfigurableNameAction) action);
+            }
+        }
+        return result;
+    }
+
+    private static void showNotification(Project project, String content) {
+        Notifications.Bus.notify(new Notification(CopyStatisticsAction.NOTIFICATION_GROUP, MessageBundle.message("rename.title"), content,
+                NotificationType.INFORMATION), project);
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+package be.cegeka.intellij.plugin.configurablefilename.rename;
+
+import be.cegeka.intellij.plugin.configurablefilename.CreateFileWithConfigurableNameAction;
+import be.cegeka.intellij.plugin.configurablefilename.messages.MessageBundle;
+import be.cegeka.intellij.plugin.configurablefilename.template.FilenameTemplate;
+import be.cegeka.intellij.plugin.configurablefilename.template.TemplateProblem;
+import be.cegeka.intellij.plugin.configurablefilename.variables.VariableProvider;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.openapi.ui.ValidationInfo;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.ui.components.JBLabel;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ItemEvent;
+import java.awt.event.ItemListener;
+import java.util.List;
+import java.util.Locale;
+
+final class ReapplyTemplateDialog extends DialogWrapper {
+
+    private final JComboBox<CreateFileWithConfigurableNameAction> typeField;
+    private final JTextField previousTemplateField = new JTextField(30);
+    private final JBLabel templateLabel = new JBLabel();
+
+    ReapplyTemplateDialog(Project project, VirtualFile directory, List<CreateFileWithConfigurableNameAction> actions) {
+        super(project, true);
+        setTitle(MessageBundle.message("rename.dialog.title", directory.getName()));
+
+        typeField = new JComboBox<CreateFileWithConfigurableNameAction>(
+                actions.toArray(new CreateFileWithConfigurableNameAction[actions.size()]));
+        typeField.setRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+                super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+                if (value != null) {
+                    setText(((CreateFileWithConfigurableNameAction) value).getType());
+                }
+                return this;
+            }
+        });
+        typeField.addItemListener(new ItemListener() {
+            @Override
+            public void itemStateChanged(ItemEvent e) {
+                if (e.getStateChange() == ItemEvent.SELECTED) {
+                    typeChanged();
+                }
+            }
+        });
+        typeChanged();
+
+        setOKButtonText(MessageBundle.message("rename.dialog.ok"));
+        init();
+        initValidation();
+    }
+
+    private void typeChanged() {
+        String source = getAction().getTemplate().getSource();
+        templateLabel.setText(source);
+        // The user edits the current template back into the previous one
+        previousTemplateField.setText(source);
+    }
+
+    CreateFileWithConfigurableNameAction getAction() {
+        return (CreateFileWithConfigurableNameAction) typeField.getSelectedItem();
+    }
+
+    FilenameTemplate getPreviousTemplate() {
+        return FilenameTemplate.compile(previousTemplateField.getText());
+    }
+
+    @Nullable
+    @Override
+    protected ValidationInfo doValidate() {
+        FilenameTemplate previous = FilenameTemplate.compile(previousTemplateField.getText(), VariableProvider.getNames());
+        List<TemplateProblem> problems = previous.getProblems();
+        if (!problems.isEmpty()) {
+            TemplateProblem problem = problems.get(0);
+            String key = "template.problem." + problem.getKind().name().toLowerCase(Locale.ENGLISH).replace('_', '.');
+            return new ValidationInfo(MessageBundle.message(key, problem.getDetail()), previousTemplateField);
+        }
+
+        FilenameTemplate template = getAction().getTemplate();
+        if (previous.getSource().equals(template.getSource())) {
+            return new ValidationInfo(MessageBundle.message("rename.error.same.template"), previousTemplateField);
+        }
+        if (template.usesName() && !previous.recoversName()) {
+            return new ValidationInfo(MessageBundle.message("rename.error.no.name"), previousTemplateField);
+        }
+        return null;
+    }
+
+    @Override
+    public JComponent getPreferredFocusedComponent() {
+        return previousTemplateField;
+    }
+
+    @Nullable
+    @Override
+    protected JComponent createCenterPanel() {
+        JPanel panel = new JPanel(new GridBagLayout());
+        addRow(panel, 0, MessageBundle.message("rename.dialog.type.label"), typeField, false);
+        addRow(panel, 1, MessageBundle.message("rename.dialog.template.label"), templateLabel, true);
+        addRow(panel, 2, MessageBundle.message("rename.dialog.previous.template.label"), previousTemplateField, true);
+        return panel;
+    }
+
+    private static void addRow(JPanel panel, int row, String label, JComponent field, boolean fill) {
+        GridBagConstraints constr = new GridBagConstraints();
+        constr.gridx = 0;
+        constr.gridy = row;
+        constr.anchor = GridBagConstraints.WEST;
+        constr.insets = new Insets(5, 0, 0, 0);
+        panel.add(new JLabel(label), constr);
+
+        constr = new GridBagConstraints();
+        constr.gridx = 1;
+        constr.gridy = row;
+        constr.weightx = 1;
+        constr.insets = new Insets(5, 10, 0, 0);
+        constr.fill = fill ? GridBagConstraints.HORIZONTAL : GridBagConstraints.NONE;
+        constr.anchor = GridBagConstraints.WEST;
+        panel.add(field, constr);
+    }
+}
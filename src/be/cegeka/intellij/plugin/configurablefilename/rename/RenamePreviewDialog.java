@@ -0,0 +1,133 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+package be.cegeka.intellij.plugin.configurablefilename.rename;
+
+import be.cegeka.intellij.plugin.configurablefilename.messages.MessageBundle;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.ui.JBColor;
+import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.table.JBTable;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.*;
+import java.util.List;
+
+final class RenamePreviewDialog extends DialogWrapper {
+
+    private final VirtualFile root;
+    private final List<FileRename> renames;
+    private final int conflicts;
+
+    RenamePreviewDialog(Project project, VirtualFile root, List<FileRename> renames) {
+        super(project, true);
+        this.root = root;
+        this.renames = renames;
+
+        int count = 0;
+        for (FileRename rename : renames) {
+            if (rename.isConflict()) count++;
+        }
+        this.conflicts = count;
+
+        setTitle(MessageBundle.message("rename.preview.title", renames.size() - conflicts));
+        setOKButtonText(MessageBundle.message("rename.dialog.ok"));
+        setOKActionEnabled(conflicts < renames.size());
+        init();
+    }
+
+    @Override
+    protected String getDimensionServiceKey() {
+        return "ConfigurableFilename.RenamePreview";
+    }
+
+    @Nullable
+    @Override
+    protected JComponent createCenterPanel() {
+        JBTable table = new JBTable(new PreviewModel());
+        table.setDefaultRenderer(Object.class, new DefaultTableCellRenderer() {
+            @Override
+            public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+                super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+                if (!isSelected) {
+                    setForeground(renames.get(row).isConflict() ? JBColor.RED : table.getForeground());
+                }
+                return this;
+            }
+        });
+
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.add(new JBScrollPane(table), BorderLayout.CENTER);
+        if (conflicts > 0) {
+            panel.add(new JBLabel(MessageBundle.message("rename.preview.conflicts", conflicts)), BorderLayout.SOUTH);
+        }
+        panel.setPreferredSize(new Dimension(700, 400));
+        return panel;
+    }
+
+    private class PreviewModel extends AbstractTableModel {
+
+        private final String[] columns = {
+                MessageBundle.message("rename.preview.column.directory"),
+                MessageBundle.message("rename.preview.column.current"),
+                MessageBundle.message("rename.preview.column.new")
+        };
+
+        @Override
+        public int getRowCount() {
+            return renames.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return columns.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columns[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            FileRename rename = renames.get(row);
+            switch (column) {
+                case 0:
+                    String path = VfsUtilCore.getRelativePath(rename.getFile().getParent(), root, '/');
+                    return path == null || path.isEmpty() ? "." : path;
+                case 1:
+                    return rename.getOldName();
+                default:
+                    return rename.getNewName();
+            }
+        }
+    }
+}
@@ -0,0 +1,359 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+package be.cegeka.intellij.plugin.configurablefilename.rename;
+
+import be.cegeka.intellij.plugin.configurablefilename.CreateFileWithConfigurableNameAction;
+import be.cegeka.intellij.plugin.configurablefilename.directory.SequenceCounters;
+import be.cegeka.intellij.plugin.configurablefilename.messages.MessageBundle;
+import be.cegeka.intellij.plugin.configurablefilename.settings.PluginSettings;
+import be.cegeka.intellij.plugin.configurablefilename.template.FilenameSanitizer;
+import be.cegeka.intellij.plugin.configurablefilename.template.FilenameTemplate;
+import be.cegeka.intellij.plugin.configurablefilename.template.ParsedFilename;
+import be.cegeka.intellij.plugin.configurablefilename.template.VariableResolver;
+import be.cegeka.intellij.plugin.configurablefilename.variables.VariableCache;
+import com.intellij.concurrency.JobLauncher;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.command.CommandProcessor;
+import com.intellij.openapi.command.UndoConfirmationPolicy;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ContentIterator;
+import com.intellij.openapi.roots.ProjectFileIndex;
+import com.intellij.openapi.roots.ProjectRootManager;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.util.SystemInfo;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileFilter;
+import com.intellij.util.Processor;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renames existing files to the current template of a type. The values a file was created with are recovered from its
+ * name with the previous template.
+ */
+public class TemplateRenamer {
+
+    private static final Logger LOG = Logger.getInstance(TemplateRenamer.class);
+
+    // Small enough to keep the event dispatch thread responsive between two write actions
+    private static final int CHUNK_SIZE = 200;
+
+    // Files without a number are numbered in the order they were created, as far as their name or timestamp tells
+    private static final Comparator<FileRename> CREATION_ORDER = new Comparator<FileRename>() {
+        @Override
+        public int compare(FileRename first, FileRename second) {
+            long a = getCreationTime(first);
+            long b = getCreationTime(second);
+            if (a != b) return a < b ? -1 : 1;
+            return first.getOldName().compareTo(second.getOldName());
+        }
+    };
+
+    private final Project project;
+    private final FilenameTemplate previousTemplate;
+    private final FilenameTemplate template;
+    private final String type;
+    private final FilenameSanitizer sanitizer;
+    private final ConcurrentMap<VirtualFile, VariableResolver> resolvers = new ConcurrentHashMap<VirtualFile, VariableResolver>();
+    // The numbers given to files without one per directory, taken from the counters when the files are renamed
+    private final Map<VirtualFile, Numbering> numberings = new HashMap<VirtualFile, Numbering>();
+
+    public TemplateRenamer(@NotNull Project project, @NotNull FilenameTemplate previousTemplate, @NotNull CreateFileWithConfigurableNameAction action) {
+        this.project = project;
+        this.previousTemplate = previousTemplate;
+        this.template = action.getTemplate();
+        this.type = action.getType();
+        this.sanitizer = PluginSettings.getInstance(project).getSanitizer();
+    }
+
+    /**
+     * Computes the new names of the files below the root that match the previous template, files that keep their name
+     * are left out. The names are computed in parallel, call this on a background thread.
+     */
+    @NotNull
+    public List<FileRename> findRenames(@NotNull VirtualFile root, @NotNull final ProgressIndicator indicator) {
+        indicator.setIndeterminate(true);
+        indicator.setText(MessageBundle.message("rename.progress.scanning", root.getPresentableUrl()));
+        final List<FileRename> candidates = collectFiles(root, indicator);
+
+        indicator.setIndeterminate(false);
+        indicator.setText(MessageBundle.message("rename.progress.computing"));
+        final AtomicInteger done = new AtomicInteger();
+        final double total = candidates.size();
+        boolean completed = JobLauncher.getInstance().invokeConcurrentlyUnderProgress(candidates, indicator, true, new Processor<FileRename>() {
+            @Override
+            public boolean process(final FileRename rename) {
+                // Timestamps and provided variables such as ${MODULE} read the VFS and the project model
+                ApplicationManager.getApplication().runReadAction(new Runnable() {
+                    @Override
+                    public void run() {
+                        parseAndRender(rename);
+                    }
+                });
+                indicator.setFraction(done.incrementAndGet() / total);
+                return true;
+            }
+        });
+        if (!completed) throw new ProcessCanceledException();
+
+        return ApplicationManager.getApplication().runReadAction(new Computable<List<FileRename>>() {
+            @Override
+            public List<FileRename> compute() {
+                return checkConflicts(candidates, indicator);
+            }
+        });
+    }
+
+    private List<FileRename> collectFiles(final VirtualFile root, final ProgressIndicator indicator) {
+        final List<FileRename> files = new ArrayList<FileRename>();
+        final ProjectFileIndex fileIndex = ProjectRootManager.getInstance(project).getFileIndex();
+        ApplicationManager.getApplication().runReadAction(new Runnable() {
+            @Override
+            public void run() {
+                VfsUtilCore.iterateChildrenRecursively(root, new VirtualFileFilter() {
+                    @Override
+                    public boolean accept(VirtualFile file) {
+                        return !fileIndex.isExcluded(file);
+                    }
+                }, new ContentIterator() {
+                    @Override
+                    public boolean processFile(VirtualFile file) {
+                        indicator.checkCanceled();
+                        if (!file.isDirectory()) {
+                            files.add(new FileRename(file));
+                        }
+                        return true;
+                    }
+                });
+            }
+        });
+        return files;
+    }
+
+    private void parseAndRender(FileRename rename) {
+        ParsedFilename parsed = previousTemplate.parse(rename.getOldName(), sanitizer);
+        if (parsed == null) return;
+
+        rename.setParsed(parsed);
+        // Files without a number are numbered in order once all names are known
+        if (parsed.getSequence() >= 0 || !template.usesSequence()) {
+            rename.setNewName(render(rename, parsed.getSequence()));
+        }
+    }
+
+    private String render(FileRename rename, long sequence) {
+        ParsedFilename parsed = rename.getParsed();
+        long timestamp = getCreationTime(rename);
+        String name = parsed.getName() != null ? parsed.getName() : rename.getOldName();
+        return template.render(name, timestamp, Math.max(sequence, 0), getResolver(rename.getFile().getParent()), sanitizer);
+    }
+
+    // Without a ${NOW} value the file keeps the time it was last modified
+    private static long getCreationTime(FileRename rename) {
+        ParsedFilename parsed = rename.getParsed();
+        return parsed.hasTimestamp() ? parsed.getTimestamp() : rename.getFile().getTimeStamp();
+    }
+
+    private VariableResolver getResolver(VirtualFile directory) {
+        if (template.getExternalVariables().isEmpty()) return VariableResolver.NONE;
+
+        VariableResolver resolver = resolvers.get(directory);
+        if (resolver == null) {
+            resolver = VariableCache.getInstance(project).createResolver(directory);
+            VariableResolver existing = resolvers.putIfAbsent(directory, resolver);
+            if (existing != null) resolver = existing;
+        }
+        return resolver;
+    }
+
+    private List<FileRename> checkConflicts(List<FileRename> candidates, ProgressIndicator indicator) {
+        numberFiles(candidates, indicator);
+        Map<VirtualFile, Set<String>> newNames = new HashMap<VirtualFile, Set<String>>();
+        List<FileRename> renames = new ArrayList<FileRename>();
+        for (FileRename rename : candidates) {
+            indicator.checkCanceled();
+            if (rename.getParsed() == null || !rename.getFile().isValid()) continue;
+
+            VirtualFile directory = rename.getFile().getParent();
+            String newName = rename.getNewName();
+            if (newName.equals(rename.getOldName())) continue;
+
+            Set<String> names = newNames.get(directory);
+            if (names == null) {
+                names = new HashSet<String>();
+                newNames.put(directory, names);
+            }
+            VirtualFile existing = directory.findChild(newName);
+            boolean unique = names.add(SystemInfo.isFileSystemCaseSensitive ? newName : newName.toLowerCase(Locale.ENGLISH));
+            // A file that only changes case finds itself
+            rename.setConflict(!unique || (existing != null && !existing.equals(rename.getFile())));
+            renames.add(rename);
+        }
+        return renames;
+    }
+
+    /**
+     * Numbers the files without a number after the numbers in use in their directory. The counters are only peeked, so
+     * a cancelled preview does not leave gaps.
+     */
+    private void numberFiles(List<FileRename> candidates, ProgressIndicator indicator) {
+        numberings.clear();
+        Map<VirtualFile, List<FileRename>> unnumbered = new HashMap<VirtualFile, List<FileRename>>();
+        Map<VirtualFile, Long> used = new HashMap<VirtualFile, Long>();
+        for (FileRename rename : candidates) {
+            if (rename.getParsed() == null || !rename.getFile().isValid()) continue;
+
+            VirtualFile directory = rename.getFile().getParent();
+            if (rename.getNewName() == null) {
+                List<FileRename> renames = unnumbered.get(directory);
+                if (renames == null) {
+                    renames = new ArrayList<FileRename>();
+                    unnumbered.put(directory, renames);
+                }
+                renames.add(rename);
+            } else if (rename.getParsed().getSequence() >= 0) {
+                // Files of the previous template keep their numbers, the counter of the new one does not know them yet
+                Long max = used.get(directory);
+                used.put(directory, Math.max(max == null ? 0 : max, rename.getParsed().getSequence()));
+            }
+        }
+
+        SequenceCounters sequences = SequenceCounters.getInstance(project);
+        for (Map.Entry<VirtualFile, List<FileRename>> entry : unnumbered.entrySet()) {
+            indicator.checkCanceled();
+            VirtualFile directory = entry.getKey();
+            List<FileRename> renames = entry.getValue();
+            Collections.sort(renames, CREATION_ORDER);
+            Long max = used.get(directory);
+            long first = Math.max(sequences.peek(directory, template), max == null ? 1 : max + 1);
+            long sequence = first;
+            for (FileRename rename : renames) {
+                rename.setSequence(sequence);
+                rename.setNewName(render(rename, sequence++));
+            }
+            numberings.put(directory, new Numbering(first, sequence - 1));
+        }
+    }
+
+    /**
+     * Renames the files without a conflict and returns how many were renamed. Every chunk of files is renamed in its own
+     * write command on the event dispatch thread, the commands share a group so the rename is undone at once. Call this
+     * on a background thread, it stops after the current chunk when the indicator is cancelled.
+     */
+    public int apply(@NotNull List<FileRename> renames, @NotNull ProgressIndicator indicator) {
+        final List<FileRename> applicable = new ArrayList<FileRename>(renames.size());
+        for (FileRename rename : renames) {
+            if (!rename.isConflict()) {
+                applicable.add(rename);
+            }
+        }
+
+        final String commandName = MessageBundle.message("rename.command", type);
+        final Object groupId = new Object();
+        final AtomicInteger renamed = new AtomicInteger();
+        final Map<VirtualFile, Long> shifts = new HashMap<VirtualFile, Long>();
+        indicator.setIndeterminate(false);
+        indicator.setText(MessageBundle.message("rename.progress.renaming"));
+        for (int start = 0; start < applicable.size() && !indicator.isCanceled(); start += CHUNK_SIZE) {
+            final List<FileRename> chunk = applicable.subList(start, Math.min(start + CHUNK_SIZE, applicable.size()));
+            ApplicationManager.getApplication().invokeAndWait(new Runnable() {
+                @Override
+                public void run() {
+                    CommandProcessor.getInstance().executeCommand(project, new Runnable() {
+                        @Override
+                        public void run() {
+                            ApplicationManager.getApplication().runWriteAction(new Runnable() {
+                                @Override
+                                public void run() {
+                                    renamed.addAndGet(rename(chunk, shifts));
+                                }
+                            });
+                        }
+                    }, commandName, groupId, UndoConfirmationPolicy.REQUEST_CONFIRMATION);
+                }
+            }, ModalityState.defaultModalityState());
+            indicator.setFraction((double) (start + chunk.size()) / applicable.size());
+        }
+        return renamed.get();
+    }
+
+    private int rename(List<FileRename> chunk, Map<VirtualFile, Long> shifts) {
+        int renamed = 0;
+        for (FileRename rename : chunk) {
+            VirtualFile file = rename.getFile();
+            // Files that were renamed or deleted after the preview are left alone
+            if (!file.isValid() || !file.getName().equals(rename.getOldName())) continue;
+
+            String newName = rename.getNewName();
+            if (rename.getSequence() >= 0) {
+                long shift = takeSequences(file.getParent(), shifts);
+                if (shift > 0) newName = render(rename, rename.getSequence() + shift);
+            }
+            try {
+                file.rename(this, newName);
+                renamed++;
+            } catch (IOException e) {
+                LOG.warn("Cannot rename " + file.getPath() + " to " + newName, e);
+            }
+        }
+        return renamed;
+    }
+
+    /**
+     * Takes the numbers of a directory from its counter when its first file is renamed, and returns how far they move
+     * because files were created with some of them since the preview.
+     */
+    private long takeSequences(VirtualFile directory, Map<VirtualFile, Long> shifts) {
+        Long shift = shifts.get(directory);
+        if (shift == null) {
+            SequenceCounters sequences = SequenceCounters.getInstance(project);
+            Numbering numbering = numberings.get(directory);
+            shift = Math.max(0, sequences.peek(directory, template) - numbering.first);
+            sequences.advance(directory, template, numbering.last + shift);
+            shifts.put(directory, shift);
+        }
+        return shift;
+    }
+
+    private static final class Numbering {
+        private final long first;
+        private final long last;
+
+        private Numbering(long first, long last) {
+            this.first = first;
+            this.last = last;
+        }
+    }
+}
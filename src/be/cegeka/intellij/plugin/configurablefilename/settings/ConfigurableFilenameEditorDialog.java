@@ -26,22 +26,173 @@
 package be.cegeka.intellij.plugin.configurablefilename.settings;
 
 import be.cegeka.intellij.plugin.configurablefilename.messages.MessageBundle;
+import be.cegeka.intellij.plugin.configurablefilename.template.FilenameSanitizer;
+import be.cegeka.intellij.plugin.configurablefilename.template.FilenameTemplate;
+import be.cegeka.intellij.plugin.configurablefilename.template.RenderContext;
+import be.cegeka.intellij.plugin.configurablefilename.template.TemplateProblem;
+import be.cegeka.intellij.plugin.configurablefilename.template.UniqueSuffix;
+import be.cegeka.intellij.plugin.configurablefilename.template.VariableResolver;
+import be.cegeka.intellij.plugin.configurablefilename.variables.VariableProvider;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
 import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.openapi.ui.ValidationInfo;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.ui.DocumentAdapter;
+import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.util.Alarm;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ConfigurableFilenameEditorDialog extends DialogWrapper {
 
+    // Provided variables depend on the directory, the preview shows where they go
+    private static final VariableResolver PLACEHOLDERS = new VariableResolver() {
+        @Override
+        public String resolve(String name, String argument) {
+            return "${" + (argument == null ? name : name + ";" + argument) + "}";
+        }
+    };
+
     private final JTextField nameField = new JTextField(15);
     private final JTextField extensionField = new JTextField(5);
     private final JTextField templateField = new JTextField(30);
+    private final JTextArea additionalTemplatesField = new JTextArea(3, 30);
+    private final JTextField scopesField = new JTextField(30);
+    private final JComboBox<UniqueSuffix> uniqueSuffixField = new JComboBox<UniqueSuffix>(UniqueSuffix.values());
+    private final JBLabel previewLabel = new JBLabel();
+
+    private final FilenameSanitizer sanitizer;
+    private final Alarm previewAlarm = new Alarm(Alarm.ThreadToUse.POOLED_THREAD, getDisposable());
+    private final AtomicInteger previewRequest = new AtomicInteger();
 
-    public ConfigurableFilenameEditorDialog(JComponent parent, String title) {
+    /**
+     * @param sanitizer applied to the preview, so it shows the names as they will be created
+     */
+    public ConfigurableFilenameEditorDialog(JComponent parent, String title, FilenameSanitizer sanitizer) {
         super(parent, true);
+        this.sanitizer = sanitizer;
         setTitle(title);
+        uniqueSuffixField.setRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+                super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+                if (value != null) {
+                    setText(MessageBundle.message("unique.suffix." + ((UniqueSuffix) value).name().toLowerCase(Locale.ENGLISH)));
+                }
+                return this;
+            }
+        });
+
+        DocumentAdapter previewUpdater = new DocumentAdapter() {
+            @Override
+            protected void textChanged(DocumentEvent e) {
+                schedulePreview();
+            }
+        };
+        templateField.getDocument().addDocumentListener(previewUpdater);
+        additionalTemplatesField.getDocument().addDocumentListener(previewUpdater);
+        extensionField.getDocument().addDocumentListener(previewUpdater);
+
         init();
+        initValidation();
+    }
+
+    private void schedulePreview() {
+        final String template = templateField.getText();
+        final List<String> additionalTemplates = getAdditionalTemplates();
+        final String extension = extensionField.getText().trim();
+        final int request = previewRequest.incrementAndGet();
+
+        previewAlarm.cancelAllRequests();
+        previewAlarm.addRequest(new Runnable() {
+            @Override
+            public void run() {
+                if (request != previewRequest.get()) return;
+
+                final String preview = renderPreview(template, additionalTemplates, extension, sanitizer);
+                ApplicationManager.getApplication().invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (request == previewRequest.get()) {
+                            previewLabel.setText(preview);
+                        }
+                    }
+                }, ModalityState.stateForComponent(previewLabel));
+            }
+        }, 150);
+    }
+
+    private static String renderPreview(String template, List<String> additionalTemplates, String extension, FilenameSanitizer sanitizer) {
+        String enteredName = MessageBundle.message("dialog.preview.name");
+        String name = extension.isEmpty() ? enteredName : enteredName + "." + extension;
+        try {
+            long timestamp = System.currentTimeMillis();
+            String preview = FilenameTemplate.compile(template).render(new RenderContext(name, timestamp, 1, PLACEHOLDERS), sanitizer);
+            if (additionalTemplates.isEmpty()) {
+                return preview;
+            }
+
+            StringBuilder html = new StringBuilder("<html>").append(StringUtil.escapeXml(preview));
+            for (String additional : additionalTemplates) {
+                String file = FilenameTemplate.compile(additional).render(new RenderContext(enteredName, timestamp, 1, PLACEHOLDERS), sanitizer);
+                html.append("<br>").append(StringUtil.escapeXml(file));
+            }
+            return html.append("</html>").toString();
+        } catch (IllegalArgumentException e) {
+            return MessageBundle.message("preview.error", e.getMessage());
+        }
+    }
+
+    private List<String> getScopes() {
+        List<String> scopes = new ArrayList<String>();
+        for (String scope : StringUtil.split(scopesField.getText(), ",")) {
+            if (!scope.trim().isEmpty()) {
+                scopes.add(scope.trim());
+            }
+        }
+        return scopes;
+    }
+
+    private List<String> getAdditionalTemplates() {
+        List<String> templates = new ArrayList<String>();
+        for (String line : StringUtil.splitByLines(additionalTemplatesField.getText())) {
+            if (!line.trim().isEmpty()) {
+                templates.add(line.trim());
+            }
+        }
+        return templates;
+    }
+
+    @Nullable
+    @Override
+    protected ValidationInfo doValidate() {
+        ValidationInfo info = validateTemplate(templateField.getText(), templateField);
+        for (String additional : getAdditionalTemplates()) {
+            if (info != null) break;
+            info = validateTemplate(additional, additionalTemplatesField);
+        }
+        return info;
+    }
+
+    @Nullable
+    private static ValidationInfo validateTemplate(String template, JComponent component) {
+        List<TemplateProblem> problems = FilenameTemplate.compile(template, VariableProvider.getNames()).getProblems();
+        if (problems.isEmpty()) {
+            return null;
+        }
+
+        TemplateProblem problem = problems.get(0);
+        String key = "template.problem." + problem.getKind().name().toLowerCase(Locale.ENGLISH).replace('_', '.');
+        return new ValidationInfo(MessageBundle.message(key, problem.getDetail()), component);
     }
 
     @Override
@@ -56,6 +207,9 @@ public class ConfigurableFilenameEditorDialog extends DialogWrapper {
         filename.setType(convertString(nameField.getText()));
         filename.setDefaultExtension(convertString(extensionField.getText()));
         filename.setTemplate(convertString(templateField.getText()));
+        filename.setUniqueSuffix((UniqueSuffix) uniqueSuffixField.getSelectedItem());
+        filename.setAdditionalTemplates(getAdditionalTemplates());
+        filename.setScopes(getScopes());
 
         return filename;
     }
@@ -64,6 +218,9 @@ public class ConfigurableFilenameEditorDialog extends DialogWrapper {
         nameField.setText(filename.getType());
         extensionField.setText(filename.getDefaultExtension());
         templateField.setText(filename.getTemplate());
+        uniqueSuffixField.setSelectedItem(filename.getUniqueSuffix() == null ? UniqueSuffix.NONE : filename.getUniqueSuffix());
+        additionalTemplatesField.setText(StringUtil.join(filename.getAdditionalTemplates(), "\n"));
+        scopesField.setText(StringUtil.join(filename.getScopes(), ", "));
     }
 
     @Nullable
@@ -121,6 +278,74 @@ public class ConfigurableFilenameEditorDialog extends DialogWrapper {
         constr.anchor = GridBagConstraints.WEST;
         panel.add(templateField, constr);
 
+        // additional files
+        constr = new GridBagConstraints();
+        constr.gridx = 0;
+        constr.gridy = 3;
+        constr.anchor = GridBagConstraints.NORTHWEST;
+        constr.insets = new Insets(5, 0, 0, 0);
+        panel.add(new JLabel(MessageBundle.message("dialog.additional.templates.label")), constr);
+
+        constr = new GridBagConstraints();
+        constr.gridx = 1;
+        constr.gridy = 3;
+        constr.weightx = 1;
+        constr.insets = new Insets(5, 10, 0, 0);
+        constr.fill = GridBagConstraints.HORIZONTAL;
+        constr.anchor = GridBagConstraints.WEST;
+        additionalTemplatesField.setToolTipText(MessageBundle.message("dialog.additional.templates.tooltip"));
+        panel.add(new JBScrollPane(additionalTemplatesField), constr);
+
+        // scopes
+        constr = new GridBagConstraints();
+        constr.gridx = 0;
+        constr.gridy = 4;
+        constr.anchor = GridBagConstraints.WEST;
+        constr.insets = new Insets(5, 0, 0, 0);
+        panel.add(new JLabel(MessageBundle.message("dialog.scopes.label")), constr);
+
+        constr = new GridBagConstraints();
+        constr.gridx = 1;
+        constr.gridy = 4;
+        constr.weightx = 1;
+        constr.insets = new Insets(5, 10, 0, 0);
+        constr.fill = GridBagConstraints.HORIZONTAL;
+        constr.anchor = GridBagConstraints.WEST;
+        scopesField.setToolTipText(MessageBundle.message("dialog.scopes.tooltip"));
+        panel.add(scopesField, constr);
+
+        // unique suffix
+        constr = new GridBagConstraints();
+        constr.gridx = 0;
+        constr.gridy = 5;
+        constr.anchor = GridBagConstraints.WEST;
+        constr.insets = new Insets(5, 0, 0, 0);
+        panel.add(new JLabel(MessageBundle.message("dialog.unique.suffix.label")), constr);
+
+        constr = new GridBagConstraints();
+        constr.gridx = 1;
+        constr.gridy = 5;
+        constr.insets = new Insets(5, 10, 0, 0);
+        constr.anchor = GridBagConstraints.WEST;
+        panel.add(uniqueSuffixField, constr);
+
+        // preview
+        constr = new GridBagConstraints();
+        constr.gridx = 0;
+        constr.gridy = 6;
+        constr.anchor = GridBagConstraints.WEST;
+        constr.insets = new Insets(5, 0, 0, 0);
+        panel.add(new JLabel(MessageBundle.message("dialog.preview.label")), constr);
+
+        constr = new GridBagConstraints();
+        constr.gridx = 1;
+        constr.gridy = 6;
+        constr.weightx = 1;
+        constr.insets = new Insets(5, 10, 0, 0);
+        constr.fill = GridBagConstraints.HORIZONTAL;
+        constr.anchor = GridBagConstraints.WEST;
+        panel.add(previewLabel, constr);
+
         return panel;
     }
 
@@ -26,15 +26,26 @@
 package be.cegeka.intellij.plugin.configurablefilename.settings;
 
 import be.cegeka.intellij.plugin.configurablefilename.CreateFileWithConfigurableNameAction;
-import com.intellij.openapi.actionSystem.*;
+import be.cegeka.intellij.plugin.configurablefilename.index.TemplatedFileIndex;
+import be.cegeka.intellij.plugin.configurablefilename.scope.ScopeIndex;
+import be.cegeka.intellij.plugin.configurablefilename.settings.TemplateRegistry.SharedAction;
+import be.cegeka.intellij.plugin.configurablefilename.statistics.Operation;
+import be.cegeka.intellij.plugin.configurablefilename.statistics.Statistics;
+import be.cegeka.intellij.plugin.configurablefilename.template.FileSystemProfile;
+import be.cegeka.intellij.plugin.configurablefilename.template.FilenameSanitizer;
+import be.cegeka.intellij.plugin.configurablefilename.template.FilenameTemplate;
+import be.cegeka.intellij.plugin.configurablefilename.template.TemplateMatcher;
+import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.components.*;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.util.xmlb.XmlSerializerUtil;
+import com.intellij.util.xmlb.annotations.Transient;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 @State(name = "ConfigurableFilename",
         storages = {
@@ -45,6 +56,26 @@ import java.util.List;
 public class PluginSettings implements PersistentStateComponent<PluginSettings>, ProjectComponent {
 
     public List<ConfigurableFilename> filenames = new ArrayList<ConfigurableFilename>();
+    // The file systems created names must be valid on, see FileSystemProfile. Projects that do not set it keep the names
+    // they had on the host, where only the characters the file system rejects anyway are replaced.
+    public String fileSystemProfile = FileSystemProfile.forHost().name();
+    public String illegalCharacterReplacement = FilenameSanitizer.DEFAULT_REPLACEMENT;
+
+    private final Project project;
+    private final Map<ConfigurableFilename, SharedAction> cachedActions = new HashMap<ConfigurableFilename, SharedAction>();
+    private volatile ScopedActions actions;
+    private AnAction[] matcherActions;
+    private FilenameSanitizer matcherSanitizer;
+    private TemplateMatcher<String> matcher;
+    private volatile FilenameSanitizer sanitizer;
+
+    public PluginSettings() {
+        this(null);
+    }
+
+    public PluginSettings(Project project) {
+        this.project = project;
+    }
 
     @Nullable
     @Override
@@ -54,53 +85,199 @@ public class PluginSettings implements PersistentStateComponent<PluginSettings>,
 
     @Override
     public void loadState(PluginSettings settings) {
-        XmlSerializerUtil.copyBean(settings, this);
+        synchronized (cachedActions) {
+            XmlSerializerUtil.copyBean(settings, this);
+            actions = null;
+            sanitizer = null;
+        }
     }
 
     public static PluginSettings getInstance(Project project) {
         return project.getComponent(PluginSettings.class);
     }
 
-    private void addActions() {
-        if (filenames != null && !filenames.isEmpty()) {
-            ActionManager am = ActionManager.getInstance();
-            DefaultActionGroup newGroup = (DefaultActionGroup) am.getAction("NewGroup");
-            String anchorId = "NewFile";
+    @Transient
+    @NotNull
+    public AnAction[] getActions() {
+        return getScopedActions().actions;
+    }
+
+    /**
+     * Returns the actions of the types offered in a directory, the directory of the selected file or null when nothing
+     * is selected.
+     */
+    @NotNull
+    public AnAction[] getActions(@Nullable VirtualFile directory) {
+        ScopedActions scoped = getScopedActions();
+        if (directory == null || !scoped.index.isScoped()) return scoped.actions;
+
+        return scoped.find(directory, project == null ? null : project.getBaseDir());
+    }
+
+    private ScopedActions getScopedActions() {
+        ScopedActions result = actions;
+        if (result == null) {
+            synchronized (cachedActions) {
+                result = actions;
+                if (result == null) {
+                    List<ConfigurableFilename> all = withCatalog(filenames);
+                    result = new ScopedActions(reconcileActions(all), all);
+                    actions = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Replaces the characters the configured file systems do not allow in rendered names. A replacement that is not
+     * allowed itself, for example after editing the settings file by hand, falls back to the default one.
+     */
+    @Transient
+    @NotNull
+    public FilenameSanitizer getSanitizer() {
+        FilenameSanitizer result = sanitizer;
+        if (result == null) {
+            FileSystemProfile profile = FileSystemProfile.forName(fileSystemProfile);
+            String replacement = illegalCharacterReplacement == null ? "" : illegalCharacterReplacement;
+            result = profile.isLegal(replacement) ? new FilenameSanitizer(profile, replacement)
+                    : new FilenameSanitizer(profile, FilenameSanitizer.DEFAULT_REPLACEMENT);
+            sanitizer = result;
+        }
+        return result;
+    }
+
+    public void setSanitizer(@NotNull FilenameSanitizer sanitizer) {
+        this.fileSystemProfile = sanitizer.getProfile().name();
+        this.illegalCharacterReplacement = sanitizer.getReplacement();
+        this.sanitizer = sanitizer;
+        checkIndexedTemplates();
+    }
+
+    /**
+     * Finds the type whose template rendered a filename. When several templates match, the type listed first wins.
+     */
+    @Transient
+    @NotNull
+    public TemplateMatcher<String> getTemplateMatcher() {
+        AnAction[] current = getActions();
+        FilenameSanitizer currentSanitizer = getSanitizer();
+        synchronized (cachedActions) {
+            if (matcher == null || matcherActions != current || matcherSanitizer != currentSanitizer) {
+                Map<String, FilenameTemplate> templates = new LinkedHashMap<String, FilenameTemplate>();
+                for (AnAction action : current) {
+                    if (action instanceof CreateFileWithConfigurableNameAction) {
+                        CreateFileWithConfigurableNameAction filenameAction = (CreateFileWithConfigurableNameAction) action;
+                        templates.put(filenameAction.getType(), filenameAction.getTemplate());
+                    }
+                }
+                matcher = TemplateMatcher.create(templates, currentSanitizer);
+                matcherActions = current;
+                matcherSanitizer = currentSanitizer;
+            }
+            return matcher;
+        }
+    }
+
+    private AnAction[] reconcileActions(List<ConfigurableFilename> filenames) {
+        Map<ConfigurableFilename, SharedAction> previous = new HashMap<ConfigurableFilename, SharedAction>(cachedActions);
+        cachedActions.clear();
+
+        AnAction[] result = filenames == null ? AnAction.EMPTY_ARRAY : new AnAction[filenames.size()];
+        for (int i = 0; i < result.length; i++) {
+            ConfigurableFilename filename = filenames.get(i);
+            SharedAction shared = cachedActions.get(filename);
+            if (shared == null) {
+                shared = previous.remove(filename);
+                if (shared == null) {
+                    long start = Statistics.start();
+                    shared = TemplateRegistry.getInstance().acquire(filename);
+                    Statistics.record(filename.getType(), Operation.BUILD_ACTION, start);
+                }
+                cachedActions.put(shared.getFilename(), shared);
+            }
+            result[i] = shared.getAction();
+        }
+
+        releaseAll(previous.values());
+        return result;
+    }
+
+    private static void releaseAll(Collection<SharedAction> actions) {
+        if (actions.isEmpty()) return;
+
+        TemplateRegistry registry = TemplateRegistry.getInstance();
+        for (SharedAction shared : actions) {
+            registry.release(shared);
+        }
+    }
+
+    private List<ConfigurableFilename> withCatalog(List<ConfigurableFilename> filenames) {
+        List<ConfigurableFilename> shared = project == null ? null : TemplateCatalog.getInstance(project).getFilenames();
+        if (shared == null || shared.isEmpty()) return filenames;
+
+        List<ConfigurableFilename> result = new ArrayList<ConfigurableFilename>();
+        Set<String> types = new HashSet<String>();
+        if (filenames != null) {
             for (ConfigurableFilename filename : filenames) {
-                CreateFileWithConfigurableNameAction action =
-                        new CreateFileWithConfigurableNameAction(filename.getType(), filename.getDefaultExtension(), filename.getTemplate());
-                String actionId = "ConfigurableFileName." + filename.getType();
-                am.registerAction(actionId, action);
-                newGroup.addAction(action, new Constraints(Anchor.AFTER, anchorId));
-                anchorId = actionId;
+                result.add(filename);
+                types.add(filename.getType());
+            }
+        }
+        // Project settings override catalog entries of the same type
+        for (ConfigurableFilename filename : shared) {
+            if (types.add(filename.getType())) {
+                result.add(filename);
             }
         }
+        return result;
+    }
+
+    void invalidateActions() {
+        synchronized (cachedActions) {
+            actions = null;
+        }
+        checkIndexedTemplates();
     }
 
     public void setConfiguration(List<ConfigurableFilename> filenames) {
-        removeActions();
-        this.filenames = filenames;
-        addActions();
-    }
-
-    public void removeActions() {
-        ActionManager am = ActionManager.getInstance();
-        DefaultActionGroup newGroup = (DefaultActionGroup) am.getAction("NewGroup");
-        for (ConfigurableFilename filename : filenames) {
-            AnAction action = am.getAction("ConfigurableFileName." + filename.getType());
-            am.unregisterAction("ConfigurableFileName." + filename.getType());
-            newGroup.remove(action);
+        synchronized (cachedActions) {
+            this.filenames = filenames;
+            actions = null;
+        }
+        checkIndexedTemplates();
+    }
+
+    private void checkIndexedTemplates() {
+        if (project == null) return;
+
+        StringBuilder templates = new StringBuilder();
+        List<ConfigurableFilename> all = withCatalog(filenames);
+        if (all != null) {
+            for (ConfigurableFilename filename : all) {
+                templates.append(filename.getType()).append('\n').append(filename.getTemplate()).append('\n');
+            }
         }
+        // Sanitized names are matched as the sanitizer rewrote them
+        templates.append(getSanitizer());
+        TemplatedFileIndex.templatesChanged(project, templates.toString());
     }
 
     @Override
     public void projectOpened() {
-        addActions();
+        checkIndexedTemplates();
     }
 
     @Override
     public void projectClosed() {
-        removeActions();
+        synchronized (cachedActions) {
+            releaseAll(cachedActions.values());
+            cachedActions.clear();
+            actions = null;
+            matcherActions = null;
+            matcherSanitizer = null;
+            matcher = null;
+        }
     }
 
     @Override
@@ -116,5 +293,47 @@ public class PluginSettings implements PersistentStateComponent<PluginSettings>,
     public String getComponentName() {
         return  "ConfigurableFileNameSettings";
     }
-}
 
+    /**
+     * The actions of one configuration with the scopes of their types compiled into one index, and the actions found
+     * for recently shown directories.
+     */
+    private static final class ScopedActions {
+
+        private static final int MAX_CACHED_DIRECTORIES = 256;
+
+        final AnAction[] actions;
+        final ScopeIndex<AnAction> index;
+        private final Map<String, AnAction[]> byDirectory = new LinkedHashMap<String, AnAction[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, AnAction[]> eldest) {
+                return size() > MAX_CACHED_DIRECTORIES;
+            }
+        };
+
+        ScopedActions(AnAction[] actions, List<ConfigurableFilename> filenames) {
+            this.actions = actions;
+            Map<AnAction, List<String>> scopes = new LinkedHashMap<AnAction, List<String>>();
+            for (int i = 0; i < actions.length; i++) {
+                scopes.put(actions[i], filenames.get(i).getScopes());
+            }
+            this.index = ScopeIndex.create(scopes);
+        }
+
+        AnAction[] find(VirtualFile directory, @Nullable VirtualFile baseDir) {
+            String key = directory.getPath();
+            synchronized (byDirectory) {
+                AnAction[] found = byDirectory.get(key);
+                if (found != null) return found;
+            }
+
+            String path = baseDir == null ? null : VfsUtilCore.getRelativePath(directory, baseDir, '/');
+            List<AnAction> applicable = index.find(path);
+            AnAction[] found = applicable.toArray(new AnAction[applicable.size()]);
+            synchronized (byDirectory) {
+                byDirectory.put(key, found);
+            }
+            return found;
+        }
+    }
+}
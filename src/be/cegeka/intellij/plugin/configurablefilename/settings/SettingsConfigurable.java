@@ -26,22 +26,25 @@
 package be.cegeka.intellij.plugin.configurablefilename.settings;
 
 import be.cegeka.intellij.plugin.configurablefilename.messages.MessageBundle;
+import be.cegeka.intellij.plugin.configurablefilename.template.FileSystemProfile;
+import be.cegeka.intellij.plugin.configurablefilename.template.FilenameSanitizer;
+import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.options.Configurable;
 import com.intellij.openapi.options.ConfigurationException;
 import com.intellij.openapi.project.Project;
-import com.intellij.ui.AnActionButton;
-import com.intellij.ui.AnActionButtonRunnable;
-import com.intellij.ui.ToolbarDecorator;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.ui.*;
 import com.intellij.ui.components.JBList;
 import org.jetbrains.annotations.Nls;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
 import java.awt.*;
 import java.util.ArrayList;
-import java.util.Enumeration;
 import java.util.List;
+import java.util.Locale;
 
 import static be.cegeka.intellij.plugin.configurablefilename.messages.MessageBundle.message;
 
@@ -55,25 +58,45 @@ public class SettingsConfigurable implements Configurable {
 
     private class SettingsPanel extends JPanel {
         private final JBList filenameList;
-        private final DefaultListModel<ConfigurableFilename> listModel;
+        private final CollectionListModel<Entry> listModel;
+        private final SearchTextField searchField;
+        private final JComboBox<FileSystemProfile> fileSystemField = new JComboBox<FileSystemProfile>(FileSystemProfile.values());
+        private final JTextField replacementField = new JTextField(4);
 
-        private boolean isModified = false;
+        private final List<Entry> entries = new ArrayList<Entry>();
+        private boolean structureModified = false;
 
         public SettingsPanel() {
-            listModel = new DefaultListModel<ConfigurableFilename>();
+            listModel = new CollectionListModel<Entry>();
             initializeListModel();
             filenameList = new JBList(listModel);
+            filenameList.setPrototypeCellValue(new Entry(new ConfigurableFilename("Configurable Filename Type", null, null), null));
             filenameList.setCellRenderer(new DefaultListCellRenderer() {
                 @Override
                 public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
                     super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
-                    setText(((ConfigurableFilename) value).getType());
+                    setText(((Entry) value).filename.getType());
                     return this;
 
                 }
             });
             setLayout(new BorderLayout());
 
+            searchField = new SearchTextField();
+            searchField.addDocumentListener(new DocumentAdapter() {
+                @Override
+                protected void textChanged(DocumentEvent e) {
+                    applyFilter();
+                }
+            });
+            add(searchField, BorderLayout.NORTH);
+
+            AnActionButtonUpdater moveUpdater = new AnActionButtonUpdater() {
+                @Override
+                public boolean isEnabled(AnActionEvent e) {
+                    return !isFiltered();
+                }
+            };
             add(ToolbarDecorator.createDecorator(filenameList)
                     .setAddAction(new AnActionButtonRunnable() {
                         @Override
@@ -93,34 +116,140 @@ public class SettingsConfigurable implements Configurable {
                             editSelected();
                         }
                     })
-                    .disableUpAction()
-                    .disableDownAction()
-                    .createPanel());
+                    .setMoveUpAction(new AnActionButtonRunnable() {
+                        @Override
+                        public void run(AnActionButton anActionButton) {
+                            moveSelected(-1);
+                        }
+                    })
+                    .setMoveDownAction(new AnActionButtonRunnable() {
+                        @Override
+                        public void run(AnActionButton anActionButton) {
+                            moveSelected(1);
+                        }
+                    })
+                    .setMoveUpActionUpdater(moveUpdater)
+                    .setMoveDownActionUpdater(moveUpdater)
+                    .createPanel(), BorderLayout.CENTER);
+
+            fileSystemField.setRenderer(new DefaultListCellRenderer() {
+                @Override
+                public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+                    super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+                    if (value != null) {
+                        setText(message("file.system." + ((FileSystemProfile) value).name().toLowerCase(Locale.ENGLISH)));
+                    }
+                    return this;
+                }
+            });
+            replacementField.setToolTipText(message("settings.replacement.tooltip"));
+            JPanel sanitizerPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 5));
+            sanitizerPanel.add(new JLabel(message("settings.file.system.label")));
+            sanitizerPanel.add(fileSystemField);
+            sanitizerPanel.add(new JLabel(message("settings.replacement.label")));
+            sanitizerPanel.add(replacementField);
+            add(sanitizerPanel, BorderLayout.SOUTH);
+            resetSanitizer();
+        }
+
+        private void resetSanitizer() {
+            FilenameSanitizer sanitizer = PluginSettings.getInstance(project).getSanitizer();
+            fileSystemField.setSelectedItem(sanitizer.getProfile());
+            replacementField.setText(sanitizer.getReplacement());
         }
 
-        private void apply() {
-            List<ConfigurableFilename> newList = new ArrayList<ConfigurableFilename>(listModel.getSize());
-            Enumeration<ConfigurableFilename> elements = listModel.elements();
-            while (elements.hasMoreElements()) {
-                newList.add(elements.nextElement());
+        private FileSystemProfile getFileSystemProfile() {
+            return (FileSystemProfile) fileSystemField.getSelectedItem();
+        }
+
+        /**
+         * The sanitizer as currently entered, or the applied one while the replacement is not allowed.
+         */
+        private FilenameSanitizer getSanitizer() {
+            FileSystemProfile profile = getFileSystemProfile();
+            String replacement = replacementField.getText();
+            return profile.isLegal(replacement) ? new FilenameSanitizer(profile, replacement) : PluginSettings.getInstance(project).getSanitizer();
+        }
+
+        private boolean isSanitizerModified() {
+            FilenameSanitizer applied = PluginSettings.getInstance(project).getSanitizer();
+            return applied.getProfile() != getFileSystemProfile() || !applied.getReplacement().equals(replacementField.getText());
+        }
+
+        private boolean isModified() {
+            if (structureModified || isSanitizerModified()) return true;
+            for (Entry entry : entries) {
+                if (entry.isModified()) return true;
+            }
+            return false;
+        }
+
+        private void apply() throws ConfigurationException {
+            if (!isModified()) return;
+
+            if (isSanitizerModified()) {
+                FileSystemProfile profile = getFileSystemProfile();
+                String replacement = replacementField.getText();
+                if (!profile.isLegal(replacement)) {
+                    throw new ConfigurationException(message("settings.replacement.illegal", replacement));
+                }
+                PluginSettings.getInstance(project).setSanitizer(new FilenameSanitizer(profile, replacement));
+            }
+
+            List<ConfigurableFilename> newList = new ArrayList<ConfigurableFilename>(entries.size());
+            for (Entry entry : entries) {
+                newList.add(entry.filename);
             }
 
             PluginSettings.getInstance(project).setConfiguration(newList);
-            isModified = false;
+            for (int i = 0; i < entries.size(); i++) {
+                entries.set(i, new Entry(entries.get(i).filename, entries.get(i).filename));
+            }
+            structureModified = false;
+            applyFilter();
         }
 
         private void reset() {
-            listModel.removeAllElements();
             initializeListModel();
-            isModified = false;
+            resetSanitizer();
+            structureModified = false;
         }
 
         private void initializeListModel() {
+            entries.clear();
             for (ConfigurableFilename filename : PluginSettings.getInstance(project).filenames) {
-                listModel.add(listModel.size(), filename);
+                entries.add(new Entry(filename, filename));
+            }
+            if (searchField != null) {
+                applyFilter();
+            } else {
+                listModel.replaceAll(entries);
             }
         }
 
+        private boolean isFiltered() {
+            return !searchField.getText().trim().isEmpty();
+        }
+
+        private void applyFilter() {
+            Object selected = filenameList.getSelectedValue();
+
+            String filter = searchField.getText().trim().toLowerCase(Locale.ENGLISH);
+            if (filter.isEmpty()) {
+                listModel.replaceAll(entries);
+            } else {
+                List<Entry> matches = new ArrayList<Entry>();
+                for (Entry entry : entries) {
+                    if (entry.searchKey.contains(filter)) {
+                        matches.add(entry);
+                    }
+                }
+                listModel.replaceAll(matches);
+            }
+
+            if (selected != null) filenameList.setSelectedValue(selected, true);
+        }
+
         private void addNew() {
             ConfigurableFilenameEditorDialog dlg = createConfigurableFilenameEditorDialog(MessageBundle.message("dialog.add.title"));
             ConfigurableFilename filename = new ConfigurableFilename();
@@ -129,45 +258,86 @@ public class SettingsConfigurable implements Configurable {
                 insertNewConfigurableFilename(dlg.getData(), true);
             }
             filenameList.requestFocus();
-            isModified = true;
         }
 
         private void removeSelected() {
             int selectedIndex = filenameList.getSelectedIndex();
             if (selectedIndex != -1) {
+                Entry entry = listModel.getElementAt(selectedIndex);
+                entries.remove(indexOf(entry));
                 listModel.remove(selectedIndex);
+                structureModified = true;
             }
 
             filenameList.requestFocus();
-            isModified = true;
         }
 
         private void editSelected() {
             int selectedIndex = filenameList.getSelectedIndex();
             if (selectedIndex != -1) {
-                ConfigurableFilename filename = listModel.getElementAt(selectedIndex);
+                Entry entry = listModel.getElementAt(selectedIndex);
                 ConfigurableFilenameEditorDialog dlg = createConfigurableFilenameEditorDialog(MessageBundle.message("dialog.edit.title"));
-                dlg.setData(filename);
+                dlg.setData(entry.filename);
                 if (dlg.showAndGet()) {
-                    listModel.set(selectedIndex, dlg.getData());
+                    Entry edited = new Entry(dlg.getData(), entry.original);
+                    entries.set(indexOf(entry), edited);
+                    listModel.setElementAt(edited, selectedIndex);
                 }
             }
 
             filenameList.requestFocus();
-            isModified = true;
+        }
+
+        private void moveSelected(int direction) {
+            int selectedIndex = filenameList.getSelectedIndex();
+            int targetIndex = selectedIndex + direction;
+            if (isFiltered() || selectedIndex == -1 || targetIndex < 0 || targetIndex >= entries.size()) return;
+
+            Entry entry = entries.get(selectedIndex);
+            entries.set(selectedIndex, entries.get(targetIndex));
+            entries.set(targetIndex, entry);
+            listModel.exchangeRows(selectedIndex, targetIndex);
+            filenameList.setSelectedIndex(targetIndex);
+            structureModified = true;
+        }
+
+        private int indexOf(Entry entry) {
+            for (int i = 0; i < entries.size(); i++) {
+                if (entries.get(i) == entry) return i;
+            }
+            return -1;
         }
 
         private ConfigurableFilenameEditorDialog createConfigurableFilenameEditorDialog(String title) {
-            return new ConfigurableFilenameEditorDialog(panel, title);
+            return new ConfigurableFilenameEditorDialog(panel, title, getSanitizer());
         }
 
         private void insertNewConfigurableFilename(@NotNull ConfigurableFilename filename, boolean setSelected) {
-            listModel.add(listModel.size(), filename);
-            if (setSelected) filenameList.setSelectedValue(filename, true);
+            Entry entry = new Entry(filename, null);
+            entries.add(entry);
+            structureModified = true;
+            applyFilter();
+            if (setSelected) filenameList.setSelectedValue(entry, true);
         }
 
     }
 
+    private static class Entry {
+        private final ConfigurableFilename filename;
+        private final ConfigurableFilename original;
+        private final String searchKey;
+
+        private Entry(ConfigurableFilename filename, ConfigurableFilename original) {
+            this.filename = filename;
+            this.original = original;
+            this.searchKey = (StringUtil.notNullize(filename.getType()) + "\n" + StringUtil.notNullize(filename.getTemplate())).toLowerCase(Locale.ENGLISH);
+        }
+
+        private boolean isModified() {
+            return original == null || !original.equals(filename);
+        }
+    }
+
     @Nls
     @Override
     public String getDisplayName() {
@@ -192,7 +362,7 @@ public class SettingsConfigurable implements Configurable {
 
     @Override
     public boolean isModified() {
-        return panel != null && panel.isModified;
+        return panel != null && panel.isModified();
     }
 
     @Override
@@ -0,0 +1,192 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+package be.cegeka.intellij.plugin.configurablefilename.settings;
+
+import be.cegeka.intellij.plugin.configurablefilename.statistics.CopyStatisticsAction;
+import be.cegeka.intellij.plugin.configurablefilename.statistics.LatencyHistogram;
+import be.cegeka.intellij.plugin.configurablefilename.statistics.Operation;
+import be.cegeka.intellij.plugin.configurablefilename.statistics.Statistics;
+import com.intellij.openapi.options.Configurable;
+import com.intellij.openapi.options.ConfigurationException;
+import com.intellij.openapi.project.Project;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.table.JBTable;
+import org.jetbrains.annotations.Nls;
+import org.jetbrains.annotations.Nullable;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.Locale;
+import java.util.Map;
+
+import static be.cegeka.intellij.plugin.configurablefilename.messages.MessageBundle.message;
+
+public class StatisticsConfigurable implements Configurable {
+
+    private final Project project;
+    private StatisticsPanel panel;
+
+    public StatisticsConfigurable(Project project) {
+        this.project = project;
+    }
+
+    private class StatisticsPanel extends JPanel {
+        private final JCheckBox enabledCheckBox = new JCheckBox(message("statistics.enabled"));
+        private final DefaultTableModel tableModel = new DefaultTableModel(new Object[]{
+                message("statistics.column.type"),
+                message("statistics.column.operation"),
+                message("statistics.column.count"),
+                message("statistics.column.mean"),
+                message("statistics.column.p50"),
+                message("statistics.column.p99"),
+                message("statistics.column.max")
+        }, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+
+        public StatisticsPanel() {
+            setLayout(new BorderLayout());
+            add(enabledCheckBox, BorderLayout.NORTH);
+            add(new JBScrollPane(new JBTable(tableModel)), BorderLayout.CENTER);
+
+            JPanel buttons = new JPanel(new FlowLayout(FlowLayout.LEFT));
+            buttons.add(createButton(message("statistics.refresh"), new ActionListener() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    refresh();
+                }
+            }));
+            buttons.add(createButton(message("statistics.reset"), new ActionListener() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    Statistics.reset();
+                    refresh();
+                }
+            }));
+            buttons.add(createButton(message("statistics.copy"), new ActionListener() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    CopyStatisticsAction.copyToClipboard(project);
+                }
+            }));
+            add(buttons, BorderLayout.SOUTH);
+        }
+
+        private JButton createButton(String text, ActionListener listener) {
+            JButton button = new JButton(text);
+            button.addActionListener(listener);
+            return button;
+        }
+
+        private void refresh() {
+            tableModel.setRowCount(0);
+            for (Map.Entry<String, LatencyHistogram[]> entry : Statistics.getSnapshot().entrySet()) {
+                for (Operation operation : Operation.values()) {
+                    LatencyHistogram histogram = entry.getValue()[operation.ordinal()];
+                    if (histogram.getCount() == 0) continue;
+
+                    tableModel.addRow(new Object[]{
+                            entry.getKey(),
+                            message("statistics.operation." + operation.name().toLowerCase(Locale.ENGLISH)),
+                            histogram.getCount(),
+                            toMicros(histogram.getMean()),
+                            toMicros(histogram.getValueAtPercentile(50)),
+                            toMicros(histogram.getValueAtPercentile(99)),
+                            toMicros(histogram.getMax())
+                    });
+                }
+            }
+        }
+
+        private String toMicros(long nanos) {
+            return String.format("%.1f", nanos / 1000.0);
+        }
+
+        private boolean isModified() {
+            return enabledCheckBox.isSelected() != Statistics.isEnabled();
+        }
+
+        private void apply() {
+            Statistics.setEnabled(enabledCheckBox.isSelected());
+        }
+
+        private void reset() {
+            enabledCheckBox.setSelected(Statistics.isEnabled());
+            refresh();
+        }
+    }
+
+    @Nls
+    @Override
+    public String getDisplayName() {
+        return message("statistics.title");
+    }
+
+    @Nullable
+    @Override
+    public String getHelpTopic() {
+        // No help
+        return null;
+    }
+
+    @Nullable
+    @Override
+    public JComponent createComponent() {
+        if (panel == null) {
+            panel = new StatisticsPanel();
+        }
+        return panel;
+    }
+
+    @Override
+    public boolean isModified() {
+        return panel != null && panel.isModified();
+    }
+
+    @Override
+    public void apply() throws ConfigurationException {
+        if (panel != null) {
+            panel.apply();
+        }
+    }
+
+    @Override
+    public void reset() {
+        if (panel != null) {
+            panel.reset();
+        }
+    }
+
+    @Override
+    public void disposeUIResources() {
+        panel = null;
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+package be.cegeka.intellij.plugin.configurablefilename.settings;
+
+import com.intellij.openapi.components.ProjectComponent;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.JDOMUtil;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileMoveEvent;
+import com.intellij.util.messages.MessageBusConnection;
+import com.intellij.util.xmlb.XmlSerializer;
+import org.jdom.Element;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.InputStream;
+import java.util.*;
+
+public class TemplateCatalog implements ProjectComponent {
+
+    public static final String DIRECTORY_NAME = "filename-templates";
+
+    private static final Logger LOG = Logger.getInstance(TemplateCatalog.class);
+
+    private final Project project;
+    private final Map<String, CatalogFile> files = new TreeMap<String, CatalogFile>();
+
+    private volatile List<ConfigurableFilename> filenames;
+    private MessageBusConnection connection;
+
+    public TemplateCatalog(Project project) {
+        this.project = project;
+    }
+
+    public static TemplateCatalog getInstance(Project project) {
+        return project.getComponent(TemplateCatalog.class);
+    }
+
+    @NotNull
+    public List<ConfigurableFilename> getFilenames() {
+        List<ConfigurableFilename> result = filenames;
+        if (result == null) {
+            synchronized (files) {
+                result = filenames;
+                if (result == null) {
+                    result = reload();
+                    filenames = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    private List<ConfigurableFilename> reload() {
+        VirtualFile directory = getDirectoryPath() == null ? null : LocalFileSystem.getInstance().findFileByPath(getDirectoryPath());
+        if (directory == null || !directory.isDirectory()) {
+            files.clear();
+            return Collections.emptyList();
+        }
+
+        Set<String> removed = new HashSet<String>(files.keySet());
+        for (VirtualFile child : directory.getChildren()) {
+            if (child.isDirectory() || !"xml".equalsIgnoreCase(child.getExtension())) continue;
+
+            removed.remove(child.getName());
+            // Unchanged files keep their parsed template, so the reconciler keeps their actions
+            CatalogFile catalogFile = files.get(child.getName());
+            if (catalogFile == null || catalogFile.modificationStamp != child.getModificationStamp()) {
+                files.put(child.getName(), new CatalogFile(child.getModificationStamp(), parse(child)));
+            }
+        }
+        files.keySet().removeAll(removed);
+
+        List<ConfigurableFilename> result = new ArrayList<ConfigurableFilename>(files.size());
+        for (CatalogFile catalogFile : files.values()) {
+            if (catalogFile.filename != null) {
+                result.add(catalogFile.filename);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    @Nullable
+    private static ConfigurableFilename parse(VirtualFile file) {
+        try {
+            InputStream stream = file.getInputStream();
+            try {
+                Element element = JDOMUtil.load(stream);
+                ConfigurableFilename filename = XmlSerializer.deserialize(element, ConfigurableFilename.class);
+                if (filename == null || filename.getType() == null) {
+                    LOG.warn("Ignoring filename template without a type: " + file.getPath());
+                    return null;
+                }
+                return filename;
+            } finally {
+                stream.close();
+            }
+        } catch (Exception e) {
+            LOG.warn("Unable to read filename template " + file.getPath(), e);
+            return null;
+        }
+    }
+
+    @Nullable
+    private String getDirectoryPath() {
+        String basePath = project.getBasePath();
+        return basePath == null ? null : basePath + "/" + Project.DIRECTORY_STORE_FOLDER + "/" + DIRECTORY_NAME;
+    }
+
+    private boolean affectsCatalog(VFileEvent event, String directoryPath) {
+        if (isInDirectory(event.getPath(), directoryPath)) return true;
+        if (event instanceof VFileMoveEvent) {
+            VirtualFile oldParent = ((VFileMoveEvent) event).getOldParent();
+            return oldParent != null && isInDirectory(oldParent.getPath() + "/" + event.getFile().getName(), directoryPath);
+        }
+        return false;
+    }
+
+    private static boolean isInDirectory(String path, String directoryPath) {
+        return path != null && path.startsWith(directoryPath)
+                && (path.length() == directoryPath.length() || path.charAt(directoryPath.length()) == '/');
+    }
+
+    @Override
+    public void projectOpened() {
+        connection = project.getMessageBus().connect();
+        connection.subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener.Adapter() {
+            @Override
+            public void after(@NotNull List<? extends VFileEvent> events) {
+                String directoryPath = getDirectoryPath();
+                if (directoryPath == null || filenames == null) return;
+
+                for (VFileEvent event : events) {
+                    if (affectsCatalog(event, directoryPath)) {
+                        filenames = null;
+                        PluginSettings.getInstance(project).invalidateActions();
+                        return;
+                    }
+                }
+            }
+        });
+    }
+
+    @Override
+    public void projectClosed() {
+        if (connection != null) {
+            connection.disconnect();
+            connection = null;
+        }
+        synchronized (files) {
+            files.clear();
+            filenames = null;
+        }
+    }
+
+    @Override
+    public void initComponent() {
+    }
+
+    @Override
+    public void disposeComponent() {
+    }
+
+    @NotNull
+    @Override
+    public String getComponentName() {
+        return "ConfigurableFileNameTemplateCatalog";
+    }
+
+    private static class CatalogFile {
+        private final long modificationStamp;
+        private final ConfigurableFilename filename;
+
+        private CatalogFile(long modificationStamp, ConfigurableFilename filename) {
+            this.modificationStamp = modificationStamp;
+            this.filename = filename;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+package be.cegeka.intellij.plugin.configurablefilename.settings;
+
+import be.cegeka.intellij.plugin.configurablefilename.CreateFileWithConfigurableNameAction;
+import be.cegeka.intellij.plugin.configurablefilename.template.FilenameTemplate;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.ApplicationComponent;
+import com.intellij.util.xmlb.XmlSerializerUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TemplateRegistry implements ApplicationComponent {
+
+    private final Map<ConfigurableFilename, SharedAction> actions = new HashMap<ConfigurableFilename, SharedAction>();
+    private final Map<String, SharedTemplate> templates = new HashMap<String, SharedTemplate>();
+
+    public static TemplateRegistry getInstance() {
+        return ApplicationManager.getApplication().getComponent(TemplateRegistry.class);
+    }
+
+    @NotNull
+    public synchronized SharedAction acquire(@NotNull ConfigurableFilename filename) {
+        SharedAction shared = actions.get(filename);
+        if (shared == null) {
+            ConfigurableFilename key = XmlSerializerUtil.createCopy(filename);
+            FilenameTemplate template = acquireTemplate(key.getTemplate());
+            List<FilenameTemplate> additionalTemplates = new ArrayList<FilenameTemplate>();
+            for (String additional : key.getAdditionalTemplates()) {
+                additionalTemplates.add(acquireTemplate(additional));
+            }
+            shared = new SharedAction(key, new CreateFileWithConfigurableNameAction(key.getType(), key.getDefaultExtension(), template,
+                    additionalTemplates, key.getUniqueSuffix()), template, additionalTemplates);
+            actions.put(key, shared);
+        }
+        shared.references++;
+        return shared;
+    }
+
+    public synchronized void release(@NotNull SharedAction shared) {
+        if (--shared.references == 0 && actions.get(shared.filename) == shared) {
+            actions.remove(shared.filename);
+            releaseTemplate(shared.template);
+            for (FilenameTemplate additional : shared.additionalTemplates) {
+                releaseTemplate(additional);
+            }
+        }
+    }
+
+    private FilenameTemplate acquireTemplate(String source) {
+        String key = source == null ? "" : source;
+        SharedTemplate shared = templates.get(key);
+        if (shared == null) {
+            shared = new SharedTemplate(FilenameTemplate.compile(key));
+            templates.put(key, shared);
+        }
+        shared.references++;
+        return shared.template;
+    }
+
+    private void releaseTemplate(FilenameTemplate template) {
+        SharedTemplate shared = templates.get(template.getSource());
+        if (shared != null && shared.template == template && --shared.references == 0) {
+            templates.remove(template.getSource());
+        }
+    }
+
+    @Override
+    public void initComponent() {
+    }
+
+    @Override
+    public synchronized void disposeComponent() {
+        actions.clear();
+        templates.clear();
+    }
+
+    @NotNull
+    @Override
+    public String getComponentName() {
+        return "ConfigurableFileNameTemplateRegistry";
+    }
+
+    public static final class SharedAction {
+        private final ConfigurableFilename filename;
+        private final AnAction action;
+        private final FilenameTemplate template;
+        private final List<FilenameTemplate> additionalTemplates;
+        private int references;
+
+        private SharedAction(ConfigurableFilename filename, AnAction action, FilenameTemplate template,
+                             List<FilenameTemplate> additionalTemplates) {
+            this.filename = filename;
+            this.action = action;
+            this.template = template;
+            this.additionalTemplates = additionalTemplates;
+        }
+
+        @NotNull
+        public AnAction getAction() {
+            return action;
+        }
+
+        ConfigurableFilename getFilename() {
+            return filename;
+        }
+    }
+
+    private static final class SharedTemplate {
+        private final FilenameTemplate template;
+        private int references;
+
+        private SharedTemplate(FilenameTemplate template) {
+            this.template = template;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+package be.cegeka.intellij.plugin.configurablefilename.statistics;
+
+import be.cegeka.intellij.plugin.configurablefilename.messages.MessageBundle;
+import com.intellij.notification.Notification;
+import com.intellij.notification.NotificationType;
+import com.intellij.notification.Notifications;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.ide.CopyPasteManager;
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.datatransfer.StringSelection;
+
+public class CopyStatisticsAction extends AnAction implements DumbAware {
+
+    public static final String NOTIFICATION_GROUP = "Configurable Filename";
+
+    @Override
+    public void actionPerformed(AnActionEvent e) {
+        copyToClipboard(e.getProject());
+    }
+
+    public static void copyToClipboard(@Nullable Project project) {
+        CopyPasteManager.getInstance().setContents(new StringSelection(Statistics.toJson()));
+        String content = MessageBundle.message(Statistics.isEnabled() ? "statistics.copied" : "statistics.copied.disabled");
+        Notifications.Bus.notify(new Notification(NOTIFICATION_GROUP, MessageBundle.message("statistics.title"), content,
+                NotificationType.INFORMATION), project);
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+package be.cegeka.intellij.plugin.configurablefilename.statistics;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public final class Statistics {
+
+    private static final long DISABLED = Long.MIN_VALUE;
+    private static final double[] PERCENTILES = {50, 90, 99};
+
+    private static final ConcurrentMap<String, LatencyHistogram[]> histograms = new ConcurrentHashMap<String, LatencyHistogram[]>();
+    private static volatile boolean enabled = false;
+
+    private Statistics() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        Statistics.enabled = enabled;
+    }
+
+    public static long start() {
+        return enabled ? System.nanoTime() : DISABLED;
+    }
+
+    public static void record(String type, @NotNull Operation operation, long start) {
+        if (start == DISABLED) return;
+
+        long elapsed = System.nanoTime() - start;
+        getHistograms(String.valueOf(type))[operation.ordinal()].record(elapsed);
+    }
+
+    private static LatencyHistogram[] getHistograms(String type) {
+        LatencyHistogram[] result = histograms.get(type);
+        if (result == null) {
+            result = new LatencyHistogram[Operation.values().length];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = new LatencyHistogram();
+            }
+            LatencyHistogram[] existing = histograms.putIfAbsent(type, result);
+            if (existing != null) result = existing;
+        }
+        return result;
+    }
+
+    @NotNull
+    public static SortedMap<String, LatencyHistogram[]> getSnapshot() {
+        return Collections.unmodifiableSortedMap(new TreeMap<String, LatencyHistogram[]>(histograms));
+    }
+
+    public static void reset() {
+        histograms.clear();
+    }
+
+    @NotNull
+    public static String toJson() {
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\n  \"enabled\": ").append(enabled).append(",\n  \"unit\": \"ns\",\n  \"types\": {");
+        boolean firstType = true;
+        for (Map.Entry<String, LatencyHistogram[]> entry : getSnapshot().entrySet()) {
+            json.append(firstType ? "\n" : ",\n").append("    ");
+            appendString(json, entry.getKey()).append(": {");
+            firstType = false;
+
+            boolean firstOperation = true;
+            for (Operation operation : Operation.values()) {
+                LatencyHistogram histogram = entry.getValue()[operation.ordinal()];
+                if (histogram.getCount() == 0) continue;
+
+                json.append(firstOperation ? "\n" : ",\n").append("      ");
+                appendString(json, operation.name().toLowerCase(Locale.ENGLISH)).append(": {");
+                json.append("\"count\": ").append(histogram.getCount());
+                json.append(", \"total\": ").append(histogram.getTotal());
+                json.append(", \"mean\": ").append(histogram.getMean());
+                for (double percentile : PERCENTILES) {
+                    json.append(", \"p").append((int) percentile).append("\": ").append(histogram.getValueAtPercentile(percentile));
+                }
+                json.append(", \"max\": ").append(histogram.getMax()).append('}');
+                firstOperation = false;
+            }
+            json.append(firstOperation ? "}" : "\n    }");
+        }
+        json.append(firstType ? "}\n}\n" : "\n  }\n}\n");
+        return json.toString();
+    }
+
+    private static StringBuilder appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"');
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+package be.cegeka.intellij.plugin.configurablefilename.variables;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+
+/**
+ * The current Git branch of the repository containing the directory, read from the repository's HEAD file so it does
+ * not depend on the Git integration being enabled.
+ */
+public class BranchVariableProvider extends VariableProvider {
+
+    private static final Logger LOG = Logger.getInstance(BranchVariableProvider.class);
+
+    private static final String GIT_DIR = ".git";
+    private static final String GIT_DIR_PREFIX = "gitdir:";
+    private static final String BRANCH_PREFIX = "ref: refs/heads/";
+
+    @NotNull
+    @Override
+    public String getName() {
+        return "BRANCH";
+    }
+
+    @Override
+    public boolean isExpensive() {
+        return true;
+    }
+
+    @Override
+    public long getTimeToLive() {
+        return 10000;
+    }
+
+    @Nullable
+    @Override
+    public String compute(@NotNull Project project, @Nullable VirtualFile directory, @Nullable String argument) {
+        String path = directory != null ? directory.getPath() : project.getBasePath();
+        return path == null ? null : findBranch(new File(path));
+    }
+
+    @Nullable
+    static String findBranch(@NotNull File directory) {
+        try {
+            for (File current = directory; current != null; current = current.getParentFile()) {
+                File git = new File(current, GIT_DIR);
+                if (git.isDirectory()) {
+                    return readBranch(new File(git, "HEAD"));
+                }
+                if (git.isFile()) {
+                    // Worktrees and submodules point to their git directory
+                    String line = readFirstLine(git);
+                    if (line == null || !line.startsWith(GIT_DIR_PREFIX)) return null;
+                    File gitDir = new File(line.substring(GIT_DIR_PREFIX.length()).trim());
+                    return readBranch(new File(gitDir.isAbsolute() ? gitDir : new File(current, gitDir.getPath()), "HEAD"));
+                }
+            }
+        } catch (IOException e) {
+            LOG.debug("Unable to read the Git branch of " + directory + ": " + e.getMessage());
+        }
+        return null;
+    }
+
+    private static String readBranch(File head) throws IOException {
+        String line = readFirstLine(head);
+        // A detached HEAD has no branch
+        return line != null && line.startsWith(BRANCH_PREFIX) ? line.substring(BRANCH_PREFIX.length()).trim() : null;
+    }
+
+    private static String readFirstLine(File file) throws IOException {
+        if (!file.isFile()) return null;
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            return reader.readLine();
+        } finally {
+            reader.close();
+        }
+    }
+}
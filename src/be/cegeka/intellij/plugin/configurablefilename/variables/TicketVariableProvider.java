@@ -0,0 +1,85 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+package be.cegeka.intellij.plugin.configurablefilename.variables;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * The ticket id in the current Git branch name, e.g. ABC-123 for feature/ABC-123-new-login. A different pattern can be
+ * given as argument, its first group is used if it has one.
+ */
+public class TicketVariableProvider extends VariableProvider {
+
+    private static final Logger LOG = Logger.getInstance(TicketVariableProvider.class);
+
+    private static final Pattern DEFAULT_PATTERN = Pattern.compile("[A-Z][A-Z0-9]+-\\d+");
+
+    @NotNull
+    @Override
+    public String getName() {
+        return "TICKET";
+    }
+
+    @Override
+    public boolean isExpensive() {
+        return true;
+    }
+
+    @Override
+    public long getTimeToLive() {
+        return 10000;
+    }
+
+    @Nullable
+    @Override
+    public String compute(@NotNull Project project, @Nullable VirtualFile directory, @Nullable String argument) {
+        String path = directory != null ? directory.getPath() : project.getBasePath();
+        String branch = path == null ? null : BranchVariableProvider.findBranch(new File(path));
+        if (branch == null) return null;
+
+        Pattern pattern = DEFAULT_PATTERN;
+        if (argument != null) {
+            try {
+                pattern = Pattern.compile(argument);
+            } catch (PatternSyntaxException e) {
+                LOG.warn("Invalid ticket pattern: " + argument);
+                return null;
+            }
+        }
+
+        Matcher matcher = pattern.matcher(branch);
+        if (!matcher.find()) return null;
+        return matcher.groupCount() > 0 ? matcher.group(1) : matcher.group();
+    }
+}
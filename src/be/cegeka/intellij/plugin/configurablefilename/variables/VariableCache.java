@@ -0,0 +1,299 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+package be.cegeka.intellij.plugin.configurablefilename.variables;
+
+import be.cegeka.intellij.plugin.configurablefilename.messages.MessageBundle;
+import be.cegeka.intellij.plugin.configurablefilename.template.ExternalVariable;
+import be.cegeka.intellij.plugin.configurablefilename.template.VariableResolver;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.components.ProjectComponent;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.ThrowableComputable;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public class VariableCache implements ProjectComponent {
+
+    private static final Logger LOG = Logger.getInstance(VariableCache.class);
+
+    private static final int MAX_ENTRIES = 1024;
+
+    private final Project project;
+    private final ConcurrentMap<Key, Value> values = new ConcurrentHashMap<Key, Value>();
+    private final Set<Key> pending = Collections.newSetFromMap(new ConcurrentHashMap<Key, Boolean>());
+
+    private volatile Map<String, VariableProvider> providers;
+
+    public VariableCache(Project project) {
+        this.project = project;
+    }
+
+    public static VariableCache getInstance(Project project) {
+        return project.getComponent(VariableCache.class);
+    }
+
+    /**
+     * A resolver for creating files. Expensive values should have been computed with {@link #resolveExpensive} first,
+     * otherwise they are computed on the calling thread.
+     */
+    @NotNull
+    public VariableResolver createResolver(@Nullable VirtualFile directory) {
+        return new Resolver(directory, true);
+    }
+
+    /**
+     * A resolver that never computes expensive values, it uses cached ones and computes missing ones in the background.
+     */
+    @NotNull
+    public VariableResolver createPreviewResolver(@Nullable VirtualFile directory) {
+        return new Resolver(directory, false);
+    }
+
+    public void prewarm(@NotNull Collection<ExternalVariable> variables, @Nullable VirtualFile directory) {
+        for (Key key : getExpensiveKeys(variables, directory, false)) {
+            scheduleComputation(key);
+        }
+    }
+
+    /**
+     * Computes the expensive values that are missing or expired under a modal progress. Returns false if the user
+     * cancelled.
+     */
+    public boolean resolveExpensive(@NotNull Collection<ExternalVariable> variables, @Nullable VirtualFile directory) {
+        final List<Key> keys = getExpensiveKeys(variables, directory, true);
+        if (keys.isEmpty()) return true;
+
+        try {
+            ProgressManager.getInstance().runProcessWithProgressSynchronously(new ThrowableComputable<Object, RuntimeException>() {
+                @Override
+                public Object compute() {
+                    for (Key key : keys) {
+                        ProgressManager.checkCanceled();
+                        computeAndStore(key);
+                    }
+                    return null;
+                }
+            }, MessageBundle.message("progress.resolving.variables"), true, project);
+            return true;
+        } catch (ProcessCanceledException e) {
+            return false;
+        }
+    }
+
+    private List<Key> getExpensiveKeys(Collection<ExternalVariable> variables, VirtualFile directory, boolean includeExpired) {
+        List<Key> keys = new ArrayList<Key>();
+        for (ExternalVariable variable : variables) {
+            VariableProvider provider = getProvider(variable.getName());
+            if (provider == null || !provider.isExpensive()) continue;
+
+            Key key = new Key(provider, variable.getArgument(), directory);
+            Value value = values.get(key);
+            if (value == null || (includeExpired && !value.isFresh())) {
+                keys.add(key);
+            } else if (!value.isFresh()) {
+                scheduleComputation(key);
+            }
+        }
+        return keys;
+    }
+
+    private void scheduleComputation(final Key key) {
+        Value value = values.get(key);
+        if ((value != null && value.isFresh()) || !pending.add(key)) return;
+
+        ApplicationManager.getApplication().executeOnPooledThread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (!project.isDisposed()) {
+                        computeAndStore(key);
+                    }
+                } finally {
+                    pending.remove(key);
+                }
+            }
+        });
+    }
+
+    private String computeAndStore(Key key) {
+        String result = compute(key);
+        if (key.provider.isExpensive() || key.provider.getTimeToLive() > 0) {
+            if (values.size() >= MAX_ENTRIES) {
+                pruneExpired();
+            }
+            values.put(key, new Value(result, System.currentTimeMillis() + key.provider.getTimeToLive()));
+        }
+        return result;
+    }
+
+    private String compute(Key key) {
+        try {
+            return key.provider.compute(project, key.directory, key.argument);
+        } catch (ProcessCanceledException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            LOG.warn("Variable provider " + key.provider.getName() + " failed", e);
+            return null;
+        }
+    }
+
+    private void pruneExpired() {
+        for (Iterator<Value> it = values.values().iterator(); it.hasNext(); ) {
+            if (!it.next().isFresh()) {
+                it.remove();
+            }
+        }
+        if (values.size() >= MAX_ENTRIES) {
+            values.clear();
+        }
+    }
+
+    @Nullable
+    private VariableProvider getProvider(String name) {
+        Map<String, VariableProvider> result = providers;
+        if (result == null) {
+            result = new HashMap<String, VariableProvider>();
+            for (VariableProvider provider : VariableProvider.EP_NAME.getExtensions()) {
+                if (!result.containsKey(provider.getName())) {
+                    result.put(provider.getName(), provider);
+                }
+            }
+            providers = result;
+        }
+        return result.get(name);
+    }
+
+    @Override
+    public void projectOpened() {
+    }
+
+    @Override
+    public void projectClosed() {
+        values.clear();
+    }
+
+    @Override
+    public void initComponent() {
+    }
+
+    @Override
+    public void disposeComponent() {
+    }
+
+    @NotNull
+    @Override
+    public String getComponentName() {
+        return "ConfigurableFileNameVariableCache";
+    }
+
+    private class Resolver implements VariableResolver {
+        private final VirtualFile directory;
+        private final boolean computeExpensive;
+
+        private Resolver(VirtualFile directory, boolean computeExpensive) {
+            this.directory = directory;
+            this.computeExpensive = computeExpensive;
+        }
+
+        @Override
+        public String resolve(String name, String argument) {
+            VariableProvider provider = getProvider(name);
+            if (provider == null) return null;
+
+            Key key = new Key(provider, argument, directory);
+            if (!provider.isExpensive() && provider.getTimeToLive() <= 0) {
+                return compute(key);
+            }
+
+            Value value = values.get(key);
+            if (value != null && provider.isExpensive()) {
+                // An expired expensive value is still used, it is refreshed for the next time
+                if (!value.isFresh()) scheduleComputation(key);
+                return value.value;
+            }
+            if (value != null && value.isFresh()) {
+                return value.value;
+            }
+            if (provider.isExpensive() && !computeExpensive) {
+                scheduleComputation(key);
+                return null;
+            }
+            return computeAndStore(key);
+        }
+    }
+
+    private static final class Key {
+        private final VariableProvider provider;
+        private final String argument;
+        private final VirtualFile directory;
+
+        private Key(VariableProvider provider, String argument, VirtualFile directory) {
+            this.provider = provider;
+            this.argument = argument;
+            this.directory = directory;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Key key = (Key) o;
+            return provider == key.provider
+                    && (argument == null ? key.argument == null : argument.equals(key.argument))
+                    && (directory == null ? key.directory == null : directory.equals(key.directory));
+        }
+
+        @Override
+        public int hashCode() {
+            int result = provider.hashCode();
+            result = 31 * result + (argument == null ? 0 : argument.hashCode());
+            result = 31 * result + (directory == null ? 0 : directory.hashCode());
+            return result;
+        }
+    }
+
+    private static final class Value {
+        private final String value;
+        private final long expires;
+
+        private Value(String value, long expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+
+        private boolean isFresh() {
+            return System.currentTimeMillis() < expires;
+        }
+    }
+}
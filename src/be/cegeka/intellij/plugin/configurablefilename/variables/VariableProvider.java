@@ -0,0 +1,76 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+package be.cegeka.intellij.plugin.configurablefilename.variables;
+
+import com.intellij.openapi.extensions.ExtensionPointName;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Supplies the value of a template variable such as ${MODULE} or ${ENV;HOME}.
+ * <p>
+ * Cheap providers are called while the files are created. Expensive providers are never called from a write action:
+ * their values are computed on a background thread, when the New menu opens and before the files are created, and
+ * reused until their time to live expires.
+ */
+public abstract class VariableProvider {
+
+    public static final ExtensionPointName<VariableProvider> EP_NAME =
+            ExtensionPointName.create("be.cegeka.intellij.plugin.configurablefilename.variableProvider");
+
+    /**
+     * The name used in templates, the part before the optional semicolon and argument.
+     */
+    @NotNull
+    public abstract String getName();
+
+    public boolean isExpensive() {
+        return false;
+    }
+
+    /**
+     * How long a computed value is reused, in milliseconds. Zero computes the value for every file.
+     */
+    public long getTimeToLive() {
+        return 0;
+    }
+
+    @Nullable
+    public abstract String compute(@NotNull Project project, @Nullable VirtualFile directory, @Nullable String argument);
+
+    @NotNull
+    public static Set<String> getNames() {
+        Set<String> names = new LinkedHashSet<String>();
+        for (VariableProvider provider : EP_NAME.getExtensions()) {
+            names.add(provider.getName());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ *  Copyright (c) 2016 Bart Cremers
+ *
+ *  Permission is hereby granted, free of charge, to any person
+ *  obtaining a copy of this software and associated documentation
+ *  files (the "Software"), to deal in the Software without
+ *  restriction, including without limitation the rights to use,
+ *  copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the
+ *  Software is furnished to do so, subject to the following
+ *  conditions:
+ *
+ *  The above copyright notice and this permission notice shall be
+ *  included in all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *  EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ *  OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *  NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ *  HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ *  WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ *  FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ *  OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package be.cegeka.intellij.plugin.configurablefilename.index;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class NewestFilesTest {
+
+    private static TemplatedFile dated(long timestamp) {
+        return new TemplatedFile("name", timestamp, true, -1);
+    }
+
+    private static TemplatedFile numbered(long sequence) {
+        return new TemplatedFile("name", 0, false, sequence);
+    }
+
+    @Test
+    public void keepsTheNewestByTimestamp() {
+        NewestFiles<String> newest = new NewestFiles<String>(2)
+                .with("b", "b", dated(2000))
+                .with("a", "a", dated(1000))
+                .with("d", "d", dated(4000))
+                .with("c", "c", dated(3000));
+        assertEquals(Arrays.asList("d", "c"), newest.getFiles(2));
+        assertEquals(Collections.singletonList("d"), newest.getFiles(1));
+        assertFalse(newest.contains("b"));
+    }
+
+    @Test
+    public void comparesSequencesAndThenFilenames() {
+        NewestFiles<String> newest = new NewestFiles<String>(3)
+                .with("V9", "V9", numbered(9))
+                .with("V10", "V10", numbered(10))
+                .with("V10b", "V10b", numbered(10));
+        assertEquals(Arrays.asList("V10b", "V10", "V9"), newest.getFiles(3));
+    }
+
+    @Test
+    public void putsFilesWithATimestampFirst() {
+        NewestFiles<String> newest = new NewestFiles<String>(2)
+                .with("numbered", "numbered", numbered(100))
+                .with("dated", "dated", dated(0));
+        assertEquals(Arrays.asList("dated", "numbered"), newest.getFiles(2));
+    }
+
+    @Test
+    public void leavesItselfUnchangedForOlderFiles() {
+        NewestFiles<String> newest = new NewestFiles<String>(1).with("new", "new", dated(2000));
+        assertSame(newest, newest.with("old", "old", dated(1000)));
+        assertNotSame(newest, newest.with("newer", "newer", dated(3000)));
+        assertEquals(Collections.singletonList("new"), newest.getFiles(1));
+    }
+
+    @Test
+    public void holdsFewerFilesWhenThereAreNoMore() {
+        NewestFiles<String> newest = new NewestFiles<String>(10).with("only", "only", dated(1));
+        assertEquals(10, newest.getCount());
+        assertEquals(Collections.singletonList("only"), newest.getFiles(10));
+        assertTrue(newest.contains("only"));
+        assertTrue(new NewestFiles<String>(3).getFiles(3).isEmpty());
+    }
+}